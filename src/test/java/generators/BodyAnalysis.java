@@ -0,0 +1,113 @@
+package generators;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Result of parsing a raw request or response body: whether it is valid JSON, its tree and its
+ * structural fingerprint. A body is parsed once and the outcome is shared by every generator that
+ * looks at it.
+ */
+@Getter
+public final class BodyAnalysis {
+    private static final BodyAnalysis INVALID = new BodyAnalysis(null, false);
+
+    /**
+     * Parsed JSON tree, or null if the body is not valid JSON
+     */
+    private final JsonElement tree;
+
+    /**
+     * Whether the body text is a JSON object or array document
+     */
+    private final boolean jsonDocument;
+
+    @Getter(AccessLevel.NONE)
+    private volatile ShapeFingerprint shape;
+
+    private BodyAnalysis(JsonElement tree, boolean jsonDocument) {
+        this.tree = tree;
+        this.jsonDocument = jsonDocument;
+    }
+
+    /**
+     * Parses a raw body
+     */
+    static BodyAnalysis of(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return INVALID;
+        }
+
+        JsonElement tree;
+        try {
+            tree = JsonParser.parseString(raw);
+        } catch (Exception e) {
+            return INVALID;
+        }
+
+        String trimmed = raw.trim();
+        boolean jsonDocument = (trimmed.startsWith("{") && trimmed.endsWith("}"))
+                || (trimmed.startsWith("[") && trimmed.endsWith("]"));
+
+        return new BodyAnalysis(tree, jsonDocument);
+    }
+
+    /**
+     * Checks if the body parsed as JSON
+     */
+    public boolean isValid() {
+        return tree != null;
+    }
+
+    /**
+     * Returns the structural fingerprint of the body, computed on the first call: its keys in order and the
+     * kinds of its values, with numbers by their narrowest Java type and arrays by the set of distinct shapes
+     * of their elements. Bodies with the same fingerprint yield the same {@link ValueShape}, however often
+     * each element shape occurs, except for the sample drawn from long arrays.
+     *
+     * @throws IllegalStateException If the body is not valid JSON
+     */
+    public ShapeFingerprint getShape() {
+        if (tree == null) {
+            throw new IllegalStateException("Body is not valid JSON");
+        }
+        ShapeFingerprint result = shape;
+        if (result == null) {
+            result = shapeOf(tree);
+            shape = result;
+        }
+        return result;
+    }
+
+    private static ShapeFingerprint shapeOf(JsonElement value) {
+        ShapeFingerprint.Hasher hasher = new ShapeFingerprint.Hasher();
+        if (value.isJsonObject()) {
+            JsonObject object = value.getAsJsonObject();
+            hasher.putString("object").putLong(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                hasher.putString(entry.getKey()).putFingerprint(shapeOf(entry.getValue()));
+            }
+        } else if (value.isJsonArray()) {
+            Set<ShapeFingerprint> elements = new HashSet<>();
+            for (JsonElement element : value.getAsJsonArray()) {
+                elements.add(shapeOf(element));
+            }
+            return ShapeFingerprint.ofElements(elements);
+        } else if (value.isJsonNull()) {
+            hasher.putString("null");
+        } else {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            hasher.putString(primitive.isBoolean() ? "boolean"
+                    : primitive.isNumber() ? ValueShape.numberType(primitive).name() : "string");
+        }
+        return hasher.finish();
+    }
+}
@@ -0,0 +1,60 @@
+package generators;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class BodyAnalysisTest {
+
+    @Test
+    public void bodyIsParsedOnce() {
+        Endpoint.Body body = new Endpoint.Body("{\"id\":1}");
+
+        BodyAnalysis analysis = body.analysis();
+
+        assertTrue(analysis.isValid());
+        assertTrue(analysis.isJsonDocument());
+        assertSame(body.analysis(), analysis);
+        assertSame(analysis.getShape(), analysis.getShape());
+    }
+
+    @Test
+    public void invalidBodyHasNoShape() {
+        BodyAnalysis analysis = BodyAnalysis.of("{\"id\":");
+
+        assertFalse(analysis.isValid());
+        expectThrows(IllegalStateException.class, analysis::getShape);
+    }
+
+    @Test
+    public void shapeIgnoresValues() {
+        assertEquals(shape("{\"id\":1,\"name\":\"a\",\"tags\":[\"x\"],\"owner\":{\"ok\":true}}"),
+                shape("{\"id\":7,\"name\":\"b\",\"tags\":[\"y\",\"z\"],\"owner\":{\"ok\":false}}"));
+    }
+
+    @Test
+    public void shapeOfArrayIsTheSetOfElementShapes() {
+        assertEquals(shape("[{\"a\":1},{\"b\":\"x\"}]"), shape("[{\"b\":\"y\"},{\"a\":2},{\"a\":3}]"));
+        assertNotEquals(shape("[{\"a\":1},{\"b\":\"x\"}]"), shape("[{\"a\":1}]"));
+        assertNotEquals(shape("[1,2]"), shape("[1,null]"));
+    }
+
+    @Test
+    public void shapeDistinguishesTypesAndFields() {
+        assertNotEquals(shape("{\"id\":1}"), shape("{\"id\":1.5}"));
+        assertNotEquals(shape("{\"id\":1}"), shape("{\"id\":10000000000}"));
+        assertNotEquals(shape("{\"id\":1}"), shape("{\"id\":\"1\"}"));
+        assertNotEquals(shape("{\"id\":1}"), shape("{\"id\":null}"));
+        assertNotEquals(shape("{\"id\":1}"), shape("{\"id\":1,\"name\":\"a\"}"));
+        assertNotEquals(shape("{\"id\":1}"), shape("{\"key\":1}"));
+    }
+
+    private static ShapeFingerprint shape(String body) {
+        return BodyAnalysis.of(body).getShape();
+    }
+}
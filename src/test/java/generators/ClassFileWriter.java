@@ -0,0 +1,470 @@
+package generators;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal writer for Java class files: a constant pool, fields, methods with their code and the
+ * attributes generated models need (Signature and RuntimeVisibleAnnotations).
+ * <p>
+ * Class files are written in version 50 (Java 6). That version does not require a
+ * StackMapTable, so methods with branches can be emitted without computing stack frames;
+ * the JVM verifies them by type inference instead. Maximum stack depth and local variables
+ * are declared by the caller.
+ */
+final class ClassFileWriter {
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_PRIVATE = 0x0002;
+    static final int ACC_PROTECTED = 0x0004;
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int MAJOR_VERSION = 50;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+    private final Map<String, Integer> poolIndexes = new HashMap<>();
+    private int poolSize = 1;
+
+    private final int access;
+    private final int thisClass;
+    private final int superClass;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+    private final List<Annotation> annotations = new ArrayList<>();
+
+    /**
+     * @param access         Access flags of the class
+     * @param internalName   Internal name of the class, e.g. {@code models/User}
+     * @param superClassName Internal name of the superclass
+     */
+    ClassFileWriter(int access, String internalName, String superClassName) {
+        this.access = access;
+        this.thisClass = classRef(internalName);
+        this.superClass = classRef(superClassName);
+    }
+
+    /**
+     * Adds an annotation to the class
+     */
+    void addAnnotation(Annotation annotation) {
+        annotations.add(annotation);
+    }
+
+    /**
+     * Adds a field
+     *
+     * @param signature   Generic signature, or null if the type is not generic
+     * @param annotations Runtime-visible annotations of the field
+     */
+    void addField(int access, String name, String descriptor, String signature, List<Annotation> annotations) {
+        fields.add(member(access, name, descriptor, signature, annotations, null));
+    }
+
+    /**
+     * Adds a method with its code
+     *
+     * @param signature Generic signature, or null if the method is not generic
+     */
+    void addMethod(int access, String name, String descriptor, String signature, Code code) {
+        methods.add(member(access, name, descriptor, signature, List.of(), code));
+    }
+
+    /**
+     * Returns the complete class file
+     */
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            // The attributes add their names to the pool, so it is complete only afterwards
+            byte[] attributes = attributes(null, annotations);
+
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolSize);
+            pool.flush();
+            poolBytes.writeTo(out);
+
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);
+
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.write(attributes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    int classRef(String internalName) {
+        return constant("C" + internalName, CONSTANT_CLASS, utf8(internalName), -1);
+    }
+
+    int stringRef(String value) {
+        return constant("S" + value, CONSTANT_STRING, utf8(value), -1);
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return constant("F" + owner + '.' + name + ':' + descriptor, CONSTANT_FIELDREF,
+                classRef(owner), nameAndType(name, descriptor));
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return constant("M" + owner + '.' + name + descriptor, CONSTANT_METHODREF,
+                classRef(owner), nameAndType(name, descriptor));
+    }
+
+    private int integer(int value) {
+        String key = "I" + value;
+        Integer index = poolIndexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndexes.put(key, poolSize);
+        return poolSize++;
+    }
+
+    private int utf8(String value) {
+        String key = "U" + value;
+        Integer index = poolIndexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndexes.put(key, poolSize);
+        return poolSize++;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        return constant("N" + name + ':' + descriptor, CONSTANT_NAME_AND_TYPE, utf8(name), utf8(descriptor));
+    }
+
+    /**
+     * Adds a constant made of one or two pool references, unless an equal one exists
+     */
+    private int constant(String key, int tag, int first, int second) {
+        Integer index = poolIndexes.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            pool.writeByte(tag);
+            pool.writeShort(first);
+            if (second >= 0) {
+                pool.writeShort(second);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        poolIndexes.put(key, poolSize);
+        return poolSize++;
+    }
+
+    private byte[] member(int access, String name, String descriptor, String signature,
+                          List<Annotation> annotations, Code code) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+
+            List<byte[]> extra = new ArrayList<>();
+            if (code != null) {
+                extra.add(code.toAttribute(utf8("Code")));
+            }
+            out.write(attributes(signature, annotations, extra));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] attributes(String signature, List<Annotation> annotations) throws IOException {
+        return attributes(signature, annotations, List.of());
+    }
+
+    /**
+     * Encodes an attribute table with the given attributes plus Signature and RuntimeVisibleAnnotations
+     */
+    private byte[] attributes(String signature, List<Annotation> annotations, List<byte[]> extra) throws IOException {
+        List<byte[]> attributes = new ArrayList<>(extra);
+
+        if (signature != null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(utf8("Signature"));
+            out.writeInt(2);
+            out.writeShort(utf8(signature));
+            attributes.add(bytes.toByteArray());
+        }
+
+        if (!annotations.isEmpty()) {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(content);
+            out.writeShort(annotations.size());
+            for (Annotation annotation : annotations) {
+                annotation.writeTo(out, this);
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream attribute = new DataOutputStream(bytes);
+            attribute.writeShort(utf8("RuntimeVisibleAnnotations"));
+            attribute.writeInt(content.size());
+            content.writeTo(attribute);
+            attributes.add(bytes.toByteArray());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(attributes.size());
+        for (byte[] attribute : attributes) {
+            out.write(attribute);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A runtime-visible annotation with boolean and string elements
+     */
+    static final class Annotation {
+        private final String descriptor;
+        private final Map<String, Object> elements = new LinkedHashMap<>();
+
+        /**
+         * @param descriptor Type descriptor of the annotation, e.g. {@code Lcom/example/Marker;}
+         */
+        Annotation(String descriptor) {
+            this.descriptor = descriptor;
+        }
+
+        Annotation with(String name, boolean value) {
+            elements.put(name, value);
+            return this;
+        }
+
+        Annotation with(String name, String value) {
+            elements.put(name, value);
+            return this;
+        }
+
+        /**
+         * Adds an enum constant element
+         *
+         * @param enumDescriptor Type descriptor of the enum, e.g. {@code Lcom/example/Mode;}
+         */
+        Annotation withEnum(String name, String enumDescriptor, String constant) {
+            elements.put(name, new String[]{enumDescriptor, constant});
+            return this;
+        }
+
+        private void writeTo(DataOutputStream out, ClassFileWriter writer) throws IOException {
+            out.writeShort(writer.utf8(descriptor));
+            out.writeShort(elements.size());
+            for (Map.Entry<String, Object> element : elements.entrySet()) {
+                out.writeShort(writer.utf8(element.getKey()));
+                if (element.getValue() instanceof Boolean) {
+                    out.writeByte('Z');
+                    out.writeShort(writer.integer((Boolean) element.getValue() ? 1 : 0));
+                } else if (element.getValue() instanceof String[]) {
+                    String[] constant = (String[]) element.getValue();
+                    out.writeByte('e');
+                    out.writeShort(writer.utf8(constant[0]));
+                    out.writeShort(writer.utf8(constant[1]));
+                } else {
+                    out.writeByte('s');
+                    out.writeShort(writer.utf8((String) element.getValue()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Bytecode of one method. Branches are emitted with {@link #branch(int)} and resolved
+     * with {@link #bind(int)} once the target is known.
+     */
+    static final class Code {
+        static final int ICONST_0 = 0x03;
+        static final int ICONST_1 = 0x04;
+        static final int BIPUSH = 0x10;
+        static final int LDC = 0x12;
+        static final int LDC_W = 0x13;
+        static final int ILOAD = 0x15;
+        static final int LLOAD = 0x16;
+        static final int DLOAD = 0x18;
+        static final int ALOAD = 0x19;
+        static final int ILOAD_0 = 0x1A;
+        static final int ISTORE = 0x36;
+        static final int ASTORE = 0x3A;
+        static final int ISTORE_0 = 0x3B;
+        static final int POP = 0x57;
+        static final int DUP = 0x59;
+        static final int DUP2 = 0x5C;
+        static final int IADD = 0x60;
+        static final int IMUL = 0x68;
+        static final int LUSHR = 0x7D;
+        static final int LXOR = 0x83;
+        static final int L2I = 0x88;
+        static final int LCMP = 0x94;
+        static final int IFEQ = 0x99;
+        static final int IFNE = 0x9A;
+        static final int IF_ICMPEQ = 0x9F;
+        static final int IF_ACMPNE = 0xA6;
+        static final int GOTO = 0xA7;
+        static final int IRETURN = 0xAC;
+        static final int LRETURN = 0xAD;
+        static final int DRETURN = 0xAF;
+        static final int ARETURN = 0xB0;
+        static final int RETURN = 0xB1;
+        static final int GETFIELD = 0xB4;
+        static final int PUTFIELD = 0xB5;
+        static final int INVOKEVIRTUAL = 0xB6;
+        static final int INVOKESPECIAL = 0xB7;
+        static final int INVOKESTATIC = 0xB8;
+        static final int NEW = 0xBB;
+        static final int CHECKCAST = 0xC0;
+        static final int INSTANCEOF = 0xC1;
+        static final int IFNONNULL = 0xC7;
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        // Positions of branch instructions and of their targets
+        private final List<int[]> branches = new ArrayList<>();
+        private final int maxStack;
+        private final int maxLocals;
+
+        Code(int maxStack, int maxLocals) {
+            this.maxStack = maxStack;
+            this.maxLocals = maxLocals;
+        }
+
+        Code op(int opcode) {
+            code.write(opcode);
+            return this;
+        }
+
+        /**
+         * Emits an instruction with a constant pool reference as operand
+         */
+        Code op(int opcode, int poolIndex) {
+            code.write(opcode);
+            writeShort(poolIndex);
+            return this;
+        }
+
+        /**
+         * Loads or stores a local variable, e.g. {@code var(ALOAD, 2)}, using the short form for the first four
+         */
+        Code var(int opcode, int index) {
+            if (index > 255) {
+                throw new IllegalArgumentException("Local variable index out of range: " + index);
+            }
+            if (index <= 3) {
+                // iload_0 follows the five load instructions, istore_0 the five store instructions
+                code.write(opcode < ISTORE
+                        ? ILOAD_0 + (opcode - ILOAD) * 4 + index
+                        : ISTORE_0 + (opcode - ISTORE) * 4 + index);
+                return this;
+            }
+            code.write(opcode);
+            code.write(index);
+            return this;
+        }
+
+        Code bipush(int value) {
+            code.write(BIPUSH);
+            code.write(value);
+            return this;
+        }
+
+        Code ldc(int poolIndex) {
+            if (poolIndex > 255) {
+                return op(LDC_W, poolIndex);
+            }
+            code.write(LDC);
+            code.write(poolIndex);
+            return this;
+        }
+
+        /**
+         * Emits a branch whose target is bound later
+         *
+         * @return The branch, to be passed to {@link #bind(int)}
+         */
+        int branch(int opcode) {
+            int position = code.size();
+            code.write(opcode);
+            writeShort(0);
+            return position;
+        }
+
+        /**
+         * Makes a branch jump to the current position
+         */
+        void bind(int branch) {
+            branches.add(new int[]{branch, code.size()});
+        }
+
+        private void writeShort(int value) {
+            code.write(value >>> 8);
+            code.write(value);
+        }
+
+        private byte[] toAttribute(int nameIndex) throws IOException {
+            byte[] bytes = code.toByteArray();
+            for (int[] branch : branches) {
+                int offset = branch[1] - branch[0];
+                bytes[branch[0] + 1] = (byte) (offset >>> 8);
+                bytes[branch[0] + 2] = (byte) offset;
+            }
+
+            ByteArrayOutputStream attribute = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(attribute);
+            out.writeShort(nameIndex);
+            out.writeInt(12 + bytes.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            out.writeShort(0);
+            out.writeShort(0);
+            return attribute.toByteArray();
+        }
+    }
+}
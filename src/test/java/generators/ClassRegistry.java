@@ -0,0 +1,138 @@
+package generators;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the POJO classes of one generation run, shared by all worker threads.
+ * It maps each shape fingerprint to the class that represents it and reserves class names.
+ * Both maps are {@link ConcurrentHashMap}s updated with atomic per-key operations, so no
+ * global lock is taken while workers register classes.
+ * <p>
+ * Competing claims are decided by their ordinal, the position of the class in collection
+ * order: the lowest ordinal wins. The outcome therefore does not depend on thread timing,
+ * and a sequential run that claims in collection order reaches the same result.
+ * <p>
+ * A class may prefer a name other than its own, e.g. one named after its field. A class alias set
+ * on any occurrence of a shape overrides the preferred name of the class that owns the shape.
+ * The owner reserves exactly one name: the alias or preferred name if no earlier class took it,
+ * otherwise its own name. Since that depends on the names of earlier classes, owners reserve
+ * their names in ordinal order, after the shapes of all classes with aliases have been claimed.
+ */
+final class ClassRegistry {
+    private final ConcurrentHashMap<ShapeFingerprint, Claim> shapes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Claim> names = new ConcurrentHashMap<>();
+
+    /**
+     * Offers a class as the representative of a shape
+     *
+     * @param preferredName Name the class is known by if it owns that name; may equal the class name
+     * @param alias         Class alias set for this occurrence of the shape, or null
+     * @return true if this claim currently owns the shape
+     * @throws IllegalStateException If another occurrence of the shape has a different alias
+     */
+    boolean claimShape(ShapeFingerprint fingerprint, long ordinal, String className, String preferredName,
+                       String alias) {
+        return shapes.merge(fingerprint, new Claim(ordinal, className, preferredName, alias), Claim::merge).ordinal
+                == ordinal;
+    }
+
+    /**
+     * Checks if the claim with the given ordinal owns the shape
+     */
+    boolean ownsShape(ShapeFingerprint fingerprint, long ordinal) {
+        Claim claim = shapes.get(fingerprint);
+        return claim != null && claim.ordinal == ordinal;
+    }
+
+    /**
+     * Returns the name of the class representing a shape, or null if the shape is unknown.
+     * All names must have been reserved already.
+     */
+    String classFor(ShapeFingerprint fingerprint) {
+        Claim claim = shapes.get(fingerprint);
+        if (claim == null) {
+            return null;
+        }
+        return ownsName(claim.wantedName(), claim.ordinal) ? claim.wantedName() : claim.className;
+    }
+
+    /**
+     * Reserves the name of the class with the given ordinal if it owns the shape: its alias or preferred
+     * name, or its own name if an earlier class took that. Classes must reserve in ordinal order.
+     */
+    void reserveName(ShapeFingerprint fingerprint, long ordinal) {
+        Claim claim = shapes.get(fingerprint);
+        if (claim == null || claim.ordinal != ordinal) {
+            return;
+        }
+        if (!reserve(claim.wantedName(), ordinal)) {
+            reserve(claim.className, ordinal);
+        }
+    }
+
+    private boolean reserve(String name, long ordinal) {
+        return names.merge(name, new Claim(ordinal, name, name, null), Claim::merge).ordinal == ordinal;
+    }
+
+    /**
+     * Checks if the claim with the given ordinal owns the class name
+     */
+    boolean ownsName(String className, long ordinal) {
+        Claim claim = names.get(className);
+        return claim != null && claim.ordinal == ordinal;
+    }
+
+    private static final class Claim {
+        private final long ordinal;
+        private final String className;
+        private final String preferredName;
+        private final String alias;
+        // Earliest claim of the shape that has an alias, or null
+        private final Claim aliased;
+
+        private Claim(long ordinal, String className, String preferredName, String alias) {
+            this.ordinal = ordinal;
+            this.className = className;
+            this.preferredName = preferredName;
+            this.alias = alias;
+            this.aliased = alias != null ? this : null;
+        }
+
+        private Claim(Claim claim, Claim aliased) {
+            this.ordinal = claim.ordinal;
+            this.className = claim.className;
+            this.preferredName = claim.preferredName;
+            this.alias = claim.alias;
+            this.aliased = aliased;
+        }
+
+        /**
+         * Returns the alias set on any claim of the shape, or else the preferred name
+         */
+        private String wantedName() {
+            return aliased != null ? aliased.alias : preferredName;
+        }
+
+        /**
+         * Keeps the earlier claim, together with the earliest claim that has an alias
+         */
+        private static Claim merge(Claim a, Claim b) {
+            Claim earlier = a.ordinal <= b.ordinal ? a : b;
+            Claim aliased = earlier(a.aliased, b.aliased);
+            return aliased == earlier.aliased ? earlier : new Claim(earlier, aliased);
+        }
+
+        private static Claim earlier(Claim a, Claim b) {
+            if (a == null || b == null) {
+                return a != null ? a : b;
+            }
+            if (!a.alias.equals(b.alias)) {
+                Claim first = a.alias.compareTo(b.alias) < 0 ? a : b;
+                Claim second = first == a ? b : a;
+                throw new IllegalStateException("Conflicting class aliases for identical structures: "
+                        + first.alias + " for " + first.className + " and " + second.alias + " for " + second.className);
+            }
+            return a.ordinal <= b.ordinal ? a : b;
+        }
+    }
+}
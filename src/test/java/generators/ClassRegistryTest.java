@@ -0,0 +1,93 @@
+package generators;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class ClassRegistryTest {
+    private static final ShapeFingerprint ADDRESS = shape("address");
+    private static final ShapeFingerprint USER = shape("user");
+
+    @Test
+    public void earliestClaimOwnsTheShapeWhateverTheOrderOfClaims() throws Exception {
+        List<Integer> ordinals = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ordinals.add(i);
+        }
+        Collections.shuffle(ordinals);
+
+        ClassRegistry registry = new ClassRegistry();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> claims = new ArrayList<>();
+            for (int ordinal : ordinals) {
+                claims.add(pool.submit(() -> registry.claimShape(ADDRESS, ordinal, "Address" + ordinal,
+                        "Address" + ordinal, null)));
+            }
+            for (Future<?> claim : claims) {
+                claim.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        registry.reserveName(ADDRESS, 0);
+
+        assertTrue(registry.ownsShape(ADDRESS, 0));
+        assertFalse(registry.ownsShape(ADDRESS, 1));
+        assertEquals(registry.classFor(ADDRESS), "Address0");
+        assertNull(registry.classFor(USER));
+    }
+
+    @Test
+    public void takenPreferredNameFallsBackToTheClassName() {
+        ClassRegistry registry = new ClassRegistry();
+        registry.claimShape(USER, 0, "UsersGetUserResponse200Item", "Item", null);
+        registry.claimShape(ADDRESS, 1, "UsersGetUserResponse200AddressItem", "Item", null);
+
+        registry.reserveName(USER, 0);
+        registry.reserveName(ADDRESS, 1);
+
+        assertEquals(registry.classFor(USER), "Item");
+        assertEquals(registry.classFor(ADDRESS), "UsersGetUserResponse200AddressItem");
+        assertTrue(registry.ownsName("Item", 0));
+        assertFalse(registry.ownsName("UsersGetUserResponse200Item", 0));
+    }
+
+    @Test
+    public void aliasOfAnyClaimNamesTheOwner() {
+        ClassRegistry registry = new ClassRegistry();
+        registry.claimShape(ADDRESS, 3, "OrdersGetOrderResponse200BillingAddress", "BillingAddress", "PostalAddress");
+        registry.claimShape(ADDRESS, 1, "UsersGetUserResponse200Address", "Address", null);
+
+        registry.reserveName(ADDRESS, 1);
+        registry.reserveName(ADDRESS, 3);
+
+        assertTrue(registry.ownsShape(ADDRESS, 1));
+        assertEquals(registry.classFor(ADDRESS), "PostalAddress");
+    }
+
+    @Test
+    public void conflictingAliasesFail() {
+        ClassRegistry registry = new ClassRegistry();
+        registry.claimShape(ADDRESS, 0, "UsersGetUserResponse200Address", "Address", "Address");
+
+        IllegalStateException e = expectThrows(IllegalStateException.class, () -> registry.claimShape(ADDRESS, 1,
+                "UsersGetUserResponse200BillingAddress", "BillingAddress", "PostalAddress"));
+        assertTrue(e.getMessage().contains("Address for UsersGetUserResponse200Address"), e.getMessage());
+    }
+
+    private static ShapeFingerprint shape(String name) {
+        return new ShapeFingerprint.Hasher().putString(name).finish();
+    }
+}
@@ -0,0 +1,64 @@
+package generators;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Generates both POJOs and test classes from a Postman collection,
+ * reading and parsing the collection file only once. Unless the POJO generator plans all
+ * endpoints up front, the endpoints are streamed through both generators. The test classes
+ * build request bodies with the POJO classes that represent them, which may be shared by
+ * endpoints whose requests have identical structures.
+ */
+public class CollectionGenerator {
+    private final PojoGenerator pojoGenerator;
+    private final TestClassGenerator testClassGenerator;
+
+    public CollectionGenerator(PojoGenerator pojoGenerator, TestClassGenerator testClassGenerator) {
+        this.pojoGenerator = pojoGenerator;
+        this.testClassGenerator = testClassGenerator;
+    }
+
+    /**
+     * Main entry point to generate POJOs and test classes from a Postman collection file
+     *
+     * @param postmanCollectionPath Path to the Postman collection JSON file
+     * @throws IOException If file operations fail
+     */
+    public void generateAll(String postmanCollectionPath) throws IOException {
+        if (pojoGenerator.plansUpFront(postmanCollectionPath)) {
+            CollectionModel model = CollectionModel.read(postmanCollectionPath);
+
+            Map<Endpoint, String> requestClasses = pojoGenerator.generatePojosResolvingRequests(model);
+            testClassGenerator.generateTestClasses(model, requestClasses);
+            return;
+        }
+
+        // Hand each endpoint to both generators as it is read, so that only one endpoint
+        // and the requests the test classes need are held in memory
+        try (PojoGenerator.EndpointStream pojos = pojoGenerator.openStream();
+             TestClassGenerator.EndpointStream tests = testClassGenerator.openStream()) {
+            boolean hasItems = CollectionReader.readEndpoints(postmanCollectionPath,
+                    endpoint -> tests.handle(endpoint, pojos.generate(endpoint)));
+            pojos.finish(hasItems);
+            tests.finish(hasItems);
+        }
+    }
+
+    /**
+     * Returns the directories the generators write to, as normalized absolute paths
+     */
+    SortedSet<Path> getOutputDirectories() {
+        SortedSet<Path> directories = new TreeSet<>();
+        for (String dir : new String[]{pojoGenerator.getOutputDir(), testClassGenerator.getOutputDir()}) {
+            if (dir != null) {
+                directories.add(Paths.get(dir).toAbsolutePath().normalize());
+            }
+        }
+        return directories;
+    }
+}
@@ -0,0 +1,168 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class CollectionGeneratorTest {
+    private Path collection;
+
+    @BeforeMethod
+    public void writeCollection() throws IOException {
+        collection = Files.createTempFile("collection-generator", ".json");
+
+        JsonArray endpoints = new JsonArray();
+        endpoints.add(endpoint("CreateUser", "POST", "{\"name\":\"a\",\"age\":1}", "{\"id\":1,\"name\":\"a\"}"));
+        endpoints.add(endpoint("GetUser", "GET", null, "{\"id\":2,\"name\":\"b\",\"tags\":[\"x\"]}"));
+        endpoints.add(endpoint("DeleteUser", "DELETE", null, null));
+        writeFolder("Users", endpoints);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteCollection() throws IOException {
+        Files.deleteIfExists(collection);
+    }
+
+    @Test
+    public void streamedAndPlannedRunsWriteIdenticalFiles() throws IOException {
+        MemorySink separate = new MemorySink();
+        pojoConfig(separate, 1).build().generatePojos(collection.toString());
+
+        SortedMap<String, byte[]> streamed = generateAll(1);
+        SortedMap<String, byte[]> planned = generateAll(4);
+
+        assertTrue(streamed.keySet().stream().anyMatch(path -> path.startsWith("tests/")), streamed.keySet().toString());
+        assertIdentical(planned, streamed);
+        assertIdentical(streamed.subMap("models/", "models0"), separate.getFiles().subMap("models/", "models0"));
+    }
+
+    @Test
+    public void testsUseTheSharedClassOfIdenticalRequests() throws IOException {
+        JsonArray endpoints = new JsonArray();
+        endpoints.add(endpoint("Create user", "POST", "{\"name\":\"a\",\"age\":1}", null));
+        endpoints.add(endpoint("Update user", "PUT", "{\"name\":\"b\",\"age\":2}", null));
+        endpoints.add(endpoint("Import users", "POST", "[{\"name\":\"c\"}]", null));
+        writeFolder("Users", endpoints);
+
+        for (int parallelism : new int[]{1, 4}) {
+            MemorySink sink = new MemorySink();
+            PojoGenerator pojoGenerator = pojoConfig(sink, parallelism)
+                    .setPackageName("com.api.automation.models")
+                    .setUseLombok(false)
+                    .setUseJacksonAnnotations(false)
+                    .build();
+            new CollectionGenerator(pojoGenerator, testConfig(sink).build()).generateAll(collection.toString());
+
+            String tests = sink.getText(SourceWriter.sourcePath("tests", "UsersApiTests"));
+            assertTrue(tests.contains("UsersCreateUserRequest requestBody = new UsersCreateUserRequest();"), tests);
+            assertFalse(tests.contains("UsersUpdateUserRequest"), tests);
+            assertFalse(sink.exists(SourceWriter.sourcePath("com.api.automation.models", "UsersUpdateUserRequest")));
+
+            // The generated tests rely on the project's configuration and on org.json
+            sink.write("com/api/automation/config/ConfigManager.java", ("package com.api.automation.config;\n"
+                    + "public class ConfigManager {\n"
+                    + "    public static ConfigManager getInstance() { return new ConfigManager(); }\n"
+                    + "    public String getProperty(String key, String value) { return value; }\n"
+                    + "    public int getIntProperty(String key, int value) { return value; }\n"
+                    + "}\n").getBytes(StandardCharsets.UTF_8));
+            sink.write("org/json/JSONObject.java",
+                    "package org.json;\npublic class JSONObject {\n}\n".getBytes(StandardCharsets.UTF_8));
+            InMemoryCompiler.Result result = new InMemoryCompiler.Config()
+                    .setOptions(List.of("-proc:none"))
+                    .build()
+                    .compile(sink);
+            assertTrue(result.isSuccess(), result.getErrors().toString());
+        }
+    }
+
+    @Test
+    public void onlyPlanningRunsReadTheWholeCollection() throws IOException {
+        String path = collection.toString();
+
+        assertFalse(pojoConfig(new MemorySink(), 1).build().plansUpFront(path));
+        assertTrue(pojoConfig(new MemorySink(), 4).build().plansUpFront(path));
+        assertTrue(pojoConfig(new MemorySink(), 1).setClassAliases(Map.of("*.address", "Address")).build()
+                .plansUpFront(path));
+    }
+
+    private SortedMap<String, byte[]> generateAll(int parallelism) throws IOException {
+        MemorySink sink = new MemorySink();
+        new CollectionGenerator(pojoConfig(sink, parallelism).build(), testConfig(sink).build())
+                .generateAll(collection.toString());
+        return sink.getFiles();
+    }
+
+    private static void assertIdentical(SortedMap<String, byte[]> actual, SortedMap<String, byte[]> expected) {
+        assertFalse(expected.isEmpty());
+        assertEquals(actual.keySet(), expected.keySet());
+        for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+            assertEquals(actual.get(file.getKey()), file.getValue(), file.getKey());
+        }
+    }
+
+    private static PojoGenerator.Config pojoConfig(OutputSink sink, int parallelism) {
+        return new PojoGenerator.Config().setOutputSink(sink).setParallelism(parallelism);
+    }
+
+    private static TestClassGenerator.Config testConfig(OutputSink sink) {
+        return new TestClassGenerator.Config().setOutputSink(sink);
+    }
+
+    /**
+     * Writes a collection with a single folder of endpoints
+     */
+    private void writeFolder(String name, JsonArray endpoints) throws IOException {
+        JsonObject folder = new JsonObject();
+        folder.addProperty("name", name);
+        folder.add("item", endpoints);
+        JsonArray folders = new JsonArray();
+        folders.add(folder);
+        JsonObject root = new JsonObject();
+        root.add("item", folders);
+
+        Files.writeString(collection, root.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns an endpoint with an optional raw request body and an optional 200 response example
+     */
+    private static JsonObject endpoint(String name, String method, String requestBody, String responseBody) {
+        JsonObject request = new JsonObject();
+        request.addProperty("method", method);
+        request.addProperty("url", "{{base_url}}/users");
+        if (requestBody != null) {
+            JsonObject body = new JsonObject();
+            body.addProperty("mode", "raw");
+            body.addProperty("raw", requestBody);
+            request.add("body", body);
+        }
+
+        JsonArray responses = new JsonArray();
+        if (responseBody != null) {
+            JsonObject response = new JsonObject();
+            response.addProperty("code", 200);
+            response.addProperty("body", responseBody);
+            responses.add(response);
+        }
+
+        JsonObject endpoint = new JsonObject();
+        endpoint.addProperty("name", name);
+        endpoint.add("request", request);
+        endpoint.add("response", responses);
+        return endpoint;
+    }
+}
@@ -0,0 +1,36 @@
+package generators;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A Postman collection parsed once into a list of {@link Endpoint}s.
+ * The same model can be handed to both the POJO and the test class generator.
+ */
+@Getter
+public final class CollectionModel {
+    private final List<Endpoint> endpoints;
+    private final boolean hasItems;
+
+    private CollectionModel(List<Endpoint> endpoints, boolean hasItems) {
+        this.endpoints = endpoints;
+        this.hasItems = hasItems;
+    }
+
+    /**
+     * Reads a Postman collection file into a model
+     *
+     * @param postmanCollectionPath Path to the Postman collection JSON file
+     * @throws IOException If the file cannot be read
+     */
+    public static CollectionModel read(String postmanCollectionPath) throws IOException {
+        List<Endpoint> endpoints = new ArrayList<>();
+        boolean hasItems = CollectionReader.readEndpoints(postmanCollectionPath, endpoints::add);
+
+        return new CollectionModel(Collections.unmodifiableList(endpoints), hasItems);
+    }
+}
@@ -0,0 +1,42 @@
+package generators;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Entry point for reading the endpoints of a Postman collection file.
+ * Files that fit into a single mapping are read with {@link MappedCollectionReader};
+ * anything larger falls back to the Gson based {@link CollectionStreamReader}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CollectionReader {
+
+    /**
+     * Reads all endpoints of a Postman collection file in document order
+     *
+     * @param postmanCollectionPath Path to the Postman collection JSON file
+     * @param handler               Callback invoked for every endpoint
+     * @return false if the collection has no top-level 'item' array
+     * @throws IOException If the file cannot be read
+     */
+    public static boolean readEndpoints(String postmanCollectionPath, Endpoint.Handler handler) throws IOException {
+        if (isMapped(postmanCollectionPath)) {
+            return MappedCollectionReader.read(Paths.get(postmanCollectionPath), handler);
+        }
+
+        return CollectionStreamReader.read(postmanCollectionPath,
+                (folderPath, item) -> handler.handle(Endpoint.fromItem(folderPath, item)));
+    }
+
+    /**
+     * Checks if a collection file fits into a single mapping, so that its bodies are only decoded when used.
+     * Larger files are streamed and every body is held as a string.
+     */
+    static boolean isMapped(String postmanCollectionPath) throws IOException {
+        return Files.size(Paths.get(postmanCollectionPath)) <= MappedCollectionReader.MAX_MAPPED_SIZE;
+    }
+}
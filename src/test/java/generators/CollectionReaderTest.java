@@ -0,0 +1,113 @@
+package generators;
+
+import com.google.gson.JsonParseException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class CollectionReaderTest {
+    // A folder whose children precede its name, escaped and non-ASCII text, and bodies in all three places
+    private static final String COLLECTION = "{\"info\":{\"name\":\"Shop\"},\"item\":["
+            + "{\"item\":[{\"name\":\"Create \\\"order\\\"\",\"request\":{\"method\":\"POST\","
+            + "\"url\":\"{{base_url}}/orders\",\"body\":{\"mode\":\"raw\",\"raw\":\"{\\\"item\\\":\\\"caf\u00e9\\\"}\"}},"
+            + "\"response\":[{\"name\":\"ok\",\"code\":201,\"body\":\"{\\\"id\\\":1,\\\"note\\\":\\\"\\\\u00e9\\\\n\\\"}\","
+            + "\"originalRequest\":{\"method\":\"POST\",\"body\":{\"mode\":\"raw\",\"raw\":\"{\\\"item\\\":\\\"tea\\\"}\"}}},"
+            + "\"not an example\"]}],\"name\":\"Orders\"},"
+            + "{\"name\":\"Ping\",\"request\":{\"method\":\"GET\",\"url\":\"{{base_url}}/ping\"}}]}";
+
+    private Path collection;
+
+    @BeforeMethod
+    public void createCollection() throws IOException {
+        collection = Files.createTempFile("collection-reader", ".json");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteCollection() throws IOException {
+        Files.deleteIfExists(collection);
+    }
+
+    @Test
+    public void mappedReaderReadsWhatStreamReaderReads() throws IOException {
+        Files.writeString(collection, COLLECTION, StandardCharsets.UTF_8);
+
+        List<Endpoint> mapped = new ArrayList<>();
+        assertTrue(MappedCollectionReader.read(collection, mapped::add));
+        List<Endpoint> streamed = new ArrayList<>();
+        assertTrue(CollectionStreamReader.read(collection.toString(),
+                (folderPath, item) -> streamed.add(Endpoint.fromItem(folderPath, item))));
+
+        assertEquals(mapped.size(), 2);
+        assertEquals(streamed.size(), mapped.size());
+        for (int i = 0; i < mapped.size(); i++) {
+            assertEquals(mapped.get(i).getFolderPath(), streamed.get(i).getFolderPath());
+            assertEquals(mapped.get(i).getName(), streamed.get(i).getName());
+            assertEquals(mapped.get(i).fingerprint(), streamed.get(i).fingerprint());
+        }
+
+        Endpoint order = mapped.get(0);
+        assertEquals(order.getFolderPath(), Arrays.asList("Orders"));
+        assertEquals(order.getName(), "Create \"order\"");
+        assertEquals(order.getRequestBody().getRaw(), "{\"item\":\"caf\u00e9\"}");
+
+        Endpoint.Example example = order.getExamples().get(0);
+        assertEquals(example.getCode(), "201");
+        assertEquals(example.getBody().getRaw(), "{\"id\":1,\"note\":\"\\u00e9\\n\"}");
+        assertEquals(example.getRequestBody().getRaw(), "{\"item\":\"tea\"}");
+        assertEquals(example.getRequestBody().getRaw(), streamed.get(0).getExamples().get(0).getRequestBody().getRaw());
+
+        Endpoint ping = mapped.get(1);
+        assertTrue(ping.getFolderPath().isEmpty());
+        assertNull(ping.getRequestBody());
+        assertTrue(ping.getExamples().isEmpty());
+    }
+
+    @Test
+    public void streamReaderHandsOverEndpointsBeforeReadingTheRest() throws IOException {
+        // The collection is cut off after the second endpoint
+        Files.writeString(collection, "{\"item\":[{\"name\":\"Users\",\"item\":["
+                + "{\"name\":\"GetUser\",\"request\":{\"method\":\"GET\",\"url\":\"{{base_url}}/users/1\"}},"
+                + "{\"name\":\"ListUsers\",\"request\":{\"method\":\"GET\",\"url\":\"{{base_url}}/users\"}},"
+                + "{\"name\":\"DeleteUser\",\"request\":{\"method\":", StandardCharsets.UTF_8);
+
+        List<String> names = new ArrayList<>();
+        expectThrows(JsonParseException.class, () -> CollectionStreamReader.read(collection.toString(),
+                (folderPath, item) -> names.add(folderPath + " " + item.get("name").getAsString())));
+
+        assertEquals(names, List.of("[Users] GetUser", "[Users] ListUsers"));
+    }
+
+    @Test
+    public void collectionWithoutItemsHasNoEndpoints() throws IOException {
+        Files.writeString(collection, "{\"info\":{\"name\":\"Empty\"}}", StandardCharsets.UTF_8);
+
+        List<Endpoint> endpoints = new ArrayList<>();
+        assertFalse(CollectionReader.readEndpoints(collection.toString(), endpoints::add));
+        assertTrue(endpoints.isEmpty());
+    }
+
+    @Test
+    public void missingCommaIsRejected() throws IOException {
+        for (String json : new String[]{"{\"item\":[{\"name\":\"a\"} {\"name\":\"b\"}]}",
+                "{\"item\":[{\"name\":\"a\" \"request\":{}}]}", "{\"item\":[],}"}) {
+            Files.writeString(collection, json, StandardCharsets.UTF_8);
+
+            expectThrows(IOException.class, () -> MappedCollectionReader.read(collection, endpoint -> {
+            }));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a Postman collection incrementally with a Gson {@link JsonReader}.
+ * Endpoint items are materialized one at a time and handed to an {@link ItemHandler},
+ * so peak memory depends on the largest single item rather than on the whole collection.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class CollectionStreamReader {
+
+    /**
+     * Receives each endpoint item of the collection in document order
+     */
+    @FunctionalInterface
+    public interface ItemHandler {
+        /**
+         * @param folderPath Names of the enclosing folders, outermost first (null for unnamed folders)
+         * @param item       The endpoint item without any nested folders
+         */
+        void handle(List<String> folderPath, JsonObject item) throws IOException;
+    }
+
+    /**
+     * Streams all endpoint items of a Postman collection file to the handler
+     *
+     * @param postmanCollectionPath Path to the Postman collection JSON file
+     * @param handler               Callback invoked for every endpoint item
+     * @return false if the collection has no top-level 'item' array
+     * @throws IOException If the file cannot be read
+     */
+    public static boolean read(String postmanCollectionPath, ItemHandler handler) throws IOException {
+        try (JsonReader reader = new JsonReader(
+                Files.newBufferedReader(Paths.get(postmanCollectionPath), StandardCharsets.UTF_8))) {
+            boolean hasItems = false;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                if ("item".equals(key) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    readItems(reader, new ArrayList<>(), handler);
+                    hasItems = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return hasItems;
+        }
+    }
+
+    /**
+     * Reads an 'item' array, descending into folders as they are encountered
+     */
+    private static void readItems(JsonReader reader, List<String> folderPath, ItemHandler handler)
+            throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            readItem(reader, folderPath, handler);
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Reads a single item. Folders are streamed recursively; endpoints are collected
+     * into a JsonObject and passed to the handler.
+     */
+    private static void readItem(JsonReader reader, List<String> folderPath, ItemHandler handler)
+            throws IOException {
+        JsonObject itemObj = new JsonObject();
+        JsonArray deferredItems = null;
+        boolean isFolder = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+
+            if ("item".equals(key) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                isFolder = true;
+                if (itemObj.has("name")) {
+                    // Usual layout: the folder name precedes its children, so they can be streamed
+                    folderPath.add(nameOf(itemObj));
+                    readItems(reader, folderPath, handler);
+                    folderPath.remove(folderPath.size() - 1);
+                } else {
+                    // Name not known yet - keep the children until the rest of the folder is read
+                    deferredItems = JsonParser.parseReader(reader).getAsJsonArray();
+                }
+            } else {
+                itemObj.add(key, JsonParser.parseReader(reader));
+            }
+        }
+        reader.endObject();
+
+        if (deferredItems != null) {
+            folderPath.add(nameOf(itemObj));
+            walkItems(deferredItems, folderPath, handler);
+            folderPath.remove(folderPath.size() - 1);
+        } else if (!isFolder) {
+            handler.handle(Collections.unmodifiableList(new ArrayList<>(folderPath)), itemObj);
+        }
+    }
+
+    /**
+     * Walks an already materialized 'item' array
+     */
+    private static void walkItems(JsonArray items, List<String> folderPath, ItemHandler handler)
+            throws IOException {
+        for (JsonElement item : items) {
+            if (!item.isJsonObject()) {
+                continue;
+            }
+
+            JsonObject itemObj = item.getAsJsonObject();
+            if (itemObj.has("item") && itemObj.get("item").isJsonArray()) {
+                folderPath.add(nameOf(itemObj));
+                walkItems(itemObj.getAsJsonArray("item"), folderPath, handler);
+                folderPath.remove(folderPath.size() - 1);
+            } else {
+                handler.handle(Collections.unmodifiableList(new ArrayList<>(folderPath)), itemObj);
+            }
+        }
+    }
+
+    private static String nameOf(JsonObject itemObj) {
+        JsonElement name = itemObj.get("name");
+        return name != null && name.isJsonPrimitive() ? name.getAsString() : null;
+    }
+}
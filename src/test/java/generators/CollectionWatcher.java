@@ -0,0 +1,225 @@
+package generators;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch mode: regenerates POJOs and test classes whenever a Postman collection is saved.
+ * Bursts of saves are debounced into one regeneration, and the generators keep their manifests,
+ * so only the endpoints that changed are generated again. The JVM stays warm between regenerations.
+ * <p>
+ * Every regeneration reads a private copy of the collection, taken while the file did not change,
+ * so an editor that is still writing the collection never truncates a file the generators have mapped.
+ */
+public class CollectionWatcher implements Closeable {
+    // Attempts at copying a collection that keeps changing while it is copied
+    private static final int MAX_ATTEMPTS = 5;
+
+    private final CollectionGenerator generator;
+    private final Path collection;
+    private final long debounceMillis;
+    private final WatchService watchService;
+    private volatile boolean closed;
+
+    private CollectionWatcher(Config config, CollectionGenerator generator) throws IOException {
+        this.generator = generator;
+        this.collection = Paths.get(config.collectionPath).toAbsolutePath().normalize();
+        this.debounceMillis = config.debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        try {
+            // Editors often save by replacing the file, so creations count as well
+            collection.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            watchService.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Watches a collection and regenerates into the default output directories until the process is stopped
+     *
+     * @param args The collection, optionally followed by the POJO and the test output directory
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 3) {
+            System.err.println("Usage: CollectionWatcher <collection> [pojoOutputDir [testOutputDir]]");
+            System.exit(2);
+        }
+
+        PojoGenerator.Config pojoConfig = new PojoGenerator.Config();
+        if (args.length > 1) {
+            pojoConfig.setOutputDir(args[1]);
+        }
+        TestClassGenerator.Config testConfig = new TestClassGenerator.Config();
+        if (args.length > 2) {
+            testConfig.setOutputDir(args[2]);
+        }
+
+        CollectionGenerator generator = new CollectionGenerator(pojoConfig.build(), testConfig.build());
+        try (CollectionWatcher watcher = new Config().setCollectionPath(args[0]).build(generator)) {
+            System.out.println("Watching " + watcher.collection);
+            watcher.run();
+        }
+    }
+
+    /**
+     * Configures the watcher with custom settings
+     */
+    public static class Config {
+        private String collectionPath;
+        private long debounceMillis = 300;
+
+        public Config setCollectionPath(String path) {
+            this.collectionPath = path;
+            return this;
+        }
+
+        /**
+         * Sets how long the collection must stay unchanged before regenerating
+         */
+        public Config setDebounceMillis(long millis) {
+            this.debounceMillis = Math.max(0, millis);
+            return this;
+        }
+
+        /**
+         * Creates a watcher and starts watching the collection
+         *
+         * @param generator Generator invoked for every change
+         * @throws IOException If the collection cannot be watched
+         */
+        public CollectionWatcher build(CollectionGenerator generator) throws IOException {
+            if (collectionPath == null) {
+                throw new IllegalStateException("No collection path set");
+            }
+            return new CollectionWatcher(this, generator);
+        }
+    }
+
+    /**
+     * Generates once, then regenerates after every change until the watcher is closed.
+     * A failed regeneration, e.g. of a collection that is still being written, is reported
+     * and the watcher waits for the next change.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while waiting
+     */
+    public void run() throws InterruptedException {
+        regenerate();
+
+        try {
+            while (!closed) {
+                if (!isRelevant(watchService.take())) {
+                    continue;
+                }
+
+                // Wait until the collection stays quiet for the debounce period
+                WatchKey key;
+                while ((key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    isRelevant(key);
+                }
+
+                regenerate();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Closed while waiting
+        }
+    }
+
+    /**
+     * Stops watching; a running {@link #run()} returns
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        watchService.close();
+    }
+
+    /**
+     * Consumes the events of a key and checks if any of them concerns the collection
+     */
+    private boolean isRelevant(WatchKey key) {
+        boolean relevant = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // Events were lost, so the collection may have changed
+                relevant = true;
+            } else if (collection.getFileName().equals(event.context())) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+
+    /**
+     * Regenerates once from a snapshot of the collection. A failed regeneration is reported
+     * and the watcher waits for the next change.
+     */
+    private void regenerate() throws InterruptedException {
+        long start = System.nanoTime();
+        Path snapshot = null;
+        try {
+            snapshot = Files.createTempFile("collection-snapshot", ".json");
+            snapshot(snapshot);
+            generator.generateAll(snapshot.toString());
+            System.out.println("Regenerated from " + collection + " in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Regeneration from " + collection + " failed: " + e);
+        } finally {
+            if (snapshot != null) {
+                try {
+                    Files.deleteIfExists(snapshot);
+                } catch (IOException e) {
+                    System.err.println("Could not delete " + snapshot + ": " + e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the collection once its size and modification time are the same before and after the copy.
+     * A collection that changes or is replaced while it is copied is copied again after the debounce period.
+     *
+     * @param target File the collection is copied to
+     * @throws IOException If the collection cannot be read, or kept changing for all attempts
+     */
+    void snapshot(Path target) throws IOException, InterruptedException {
+        IOException failure = null;
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            if (attempt > 1) {
+                Thread.sleep(debounceMillis);
+            }
+
+            try {
+                BasicFileAttributes before = Files.readAttributes(collection, BasicFileAttributes.class);
+                Files.copy(collection, target, StandardCopyOption.REPLACE_EXISTING);
+                BasicFileAttributes after = Files.readAttributes(collection, BasicFileAttributes.class);
+                if (before.size() == after.size() && before.lastModifiedTime().equals(after.lastModifiedTime())
+                        && Files.size(target) == after.size()) {
+                    return;
+                }
+                failure = new IOException(collection + " changed while it was read");
+            } catch (IOException e) {
+                // An editor that saves by replacing the file may just have removed it
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+}
@@ -0,0 +1,150 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class CollectionWatcherTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private Path directory;
+    private Path collection;
+    private MemorySink sink;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("collection-watcher");
+        collection = directory.resolve("collection.json");
+        sink = new MemorySink();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void savedCollectionIsRegenerated() throws Exception {
+        writeCollection("GetUser");
+        CollectionWatcher watcher = watcher();
+        Thread thread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        try {
+            awaitClass("UsersGetUserResponse200");
+
+            writeCollection("GetUser", "GetOrder");
+            awaitClass("UsersGetOrderResponse200");
+        } finally {
+            watcher.close();
+            thread.join(TIMEOUT_MILLIS);
+        }
+        assertFalse(thread.isAlive());
+    }
+
+    @Test
+    public void snapshotCopiesTheCollection() throws Exception {
+        writeCollection("GetUser");
+        Path snapshot = directory.resolve("snapshot.json");
+
+        try (CollectionWatcher watcher = watcher()) {
+            watcher.snapshot(snapshot);
+        }
+
+        assertEquals(Files.readAllBytes(snapshot), Files.readAllBytes(collection));
+    }
+
+    @Test
+    public void missingCollectionFailsTheSnapshot() throws Exception {
+        writeCollection("GetUser");
+
+        try (CollectionWatcher watcher = watcher()) {
+            Files.delete(collection);
+
+            expectThrows(IOException.class, () -> watcher.snapshot(directory.resolve("snapshot.json")));
+        }
+    }
+
+    private CollectionWatcher watcher() throws IOException {
+        CollectionGenerator generator = new CollectionGenerator(
+                new PojoGenerator.Config().setOutputSink(sink).build(),
+                new TestClassGenerator.Config().setOutputSink(sink).build());
+        return new CollectionWatcher.Config()
+                .setCollectionPath(collection.toString())
+                .setDebounceMillis(20)
+                .build(generator);
+    }
+
+    private void awaitClass(String className) throws InterruptedException {
+        String path = SourceWriter.sourcePath("models", className);
+        await(() -> sink.exists(path));
+        assertTrue(sink.exists(path), className + " not generated, got " + sink.list());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Writes a collection with a folder of endpoints that each respond with an object
+     */
+    private void writeCollection(String... names) throws IOException {
+        JsonArray endpoints = new JsonArray();
+        for (String name : names) {
+            JsonObject response = new JsonObject();
+            response.addProperty("code", 200);
+            response.addProperty("body", "{\"" + name.toLowerCase() + "Id\":1}");
+            JsonArray responses = new JsonArray();
+            responses.add(response);
+
+            JsonObject request = new JsonObject();
+            request.addProperty("method", "GET");
+            request.addProperty("url", "{{base_url}}/" + name.toLowerCase());
+
+            JsonObject endpoint = new JsonObject();
+            endpoint.addProperty("name", name);
+            endpoint.add("request", request);
+            endpoint.add("response", responses);
+            endpoints.add(endpoint);
+        }
+
+        JsonObject folder = new JsonObject();
+        folder.addProperty("name", "Users");
+        folder.add("item", endpoints);
+        JsonArray folders = new JsonArray();
+        folders.add(folder);
+        JsonObject root = new JsonObject();
+        root.add("item", folders);
+
+        Files.writeString(collection, root.toString(), StandardCharsets.UTF_8);
+    }
+}
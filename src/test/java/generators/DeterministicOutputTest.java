@@ -0,0 +1,192 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.SortedMap;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+/**
+ * Checks that generating from the same collection always yields byte-identical output,
+ * whether the POJOs are generated by one thread or by several
+ */
+public class DeterministicOutputTest {
+    private static final String[] RESOURCES = {"Users", "Orders", "Invoices"};
+    private static final int ENDPOINTS_PER_RESOURCE = 8;
+
+    private Path collection;
+
+    @BeforeClass
+    public void writeCollection() throws IOException {
+        collection = Files.createTempFile("deterministic-output", ".json");
+        Files.writeString(collection, collectionJson(), StandardCharsets.UTF_8);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void deleteCollection() throws IOException {
+        Files.deleteIfExists(collection);
+    }
+
+    @Test
+    public void sequentialAndParallelRunsWriteIdenticalFiles() throws IOException {
+        SortedMap<String, byte[]> sequential = generateFiles(1);
+        SortedMap<String, byte[]> parallel = generateFiles(8);
+        SortedMap<String, byte[]> again = generateFiles(1);
+
+        assertFalse(sequential.isEmpty());
+        assertIdentical(parallel, sequential);
+        assertIdentical(again, sequential);
+    }
+
+    @Test
+    public void sequentialAndParallelRunsWriteIdenticalJars() throws IOException {
+        byte[] sequential = generateJar(1);
+        byte[] parallel = generateJar(8);
+        byte[] again = generateJar(1);
+
+        assertEquals(parallel, sequential, "jar written in parallel");
+        assertEquals(again, sequential, "jar written again");
+    }
+
+    private SortedMap<String, byte[]> generateFiles(int parallelism) throws IOException {
+        MemorySink sink = new MemorySink();
+        generate(sink, parallelism);
+        return sink.getFiles();
+    }
+
+    private byte[] generateJar(int parallelism) throws IOException {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (ZipSink sink = new ZipSink(jar, true)) {
+            generate(sink, parallelism);
+        }
+        return jar.toByteArray();
+    }
+
+    private void generate(OutputSink sink, int parallelism) throws IOException {
+        PojoGenerator pojoGenerator = new PojoGenerator.Config()
+                .setOutputSink(sink)
+                .setParallelism(parallelism)
+                .setEmitClassFiles(true)
+                .build();
+        TestClassGenerator testClassGenerator = new TestClassGenerator.Config()
+                .setOutputSink(sink)
+                .build();
+        new CollectionGenerator(pojoGenerator, testClassGenerator).generateAll(collection.toString());
+    }
+
+    private static void assertIdentical(SortedMap<String, byte[]> actual, SortedMap<String, byte[]> expected) {
+        assertEquals(actual.keySet(), expected.keySet());
+        for (Map.Entry<String, byte[]> file : expected.entrySet()) {
+            assertEquals(actual.get(file.getKey()), file.getValue(), file.getKey());
+        }
+    }
+
+    /**
+     * Builds a collection with several folders of endpoints whose bodies share some structures,
+     * so that the parallel passes split the work and have to agree on class names
+     */
+    private static String collectionJson() {
+        JsonArray folders = new JsonArray();
+        for (String resource : RESOURCES) {
+            JsonArray endpoints = new JsonArray();
+            for (int i = 0; i < ENDPOINTS_PER_RESOURCE; i++) {
+                endpoints.add(endpoint(resource, i));
+            }
+
+            JsonObject folder = new JsonObject();
+            folder.addProperty("name", resource);
+            folder.add("item", endpoints);
+            folders.add(folder);
+        }
+
+        JsonObject collection = new JsonObject();
+        collection.add("item", folders);
+        return collection.toString();
+    }
+
+    private static JsonObject endpoint(String resource, int index) {
+        String path = resource.toLowerCase() + "/" + index;
+
+        JsonObject url = new JsonObject();
+        url.addProperty("raw", "{{base_url}}/" + path);
+        JsonArray segments = new JsonArray();
+        segments.add(resource.toLowerCase());
+        segments.add(String.valueOf(index));
+        url.add("path", segments);
+
+        JsonObject request = new JsonObject();
+        request.addProperty("method", index % 2 == 0 ? "POST" : "GET");
+        request.add("url", url);
+        if (index % 2 == 0) {
+            JsonObject body = new JsonObject();
+            body.addProperty("mode", "raw");
+            body.addProperty("raw", requestBody(index).toString());
+            request.add("body", body);
+        }
+
+        JsonObject ok = new JsonObject();
+        ok.addProperty("name", "ok");
+        ok.addProperty("code", 200);
+        ok.addProperty("body", responseBody(resource, index).toString());
+        JsonObject error = new JsonObject();
+        error.addProperty("name", "error");
+        error.addProperty("code", 400);
+        error.addProperty("body", "{\"error\":\"bad request\",\"details\":null}");
+        JsonArray responses = new JsonArray();
+        responses.add(ok);
+        responses.add(error);
+
+        JsonObject item = new JsonObject();
+        item.addProperty("name", "Endpoint " + index);
+        item.add("request", request);
+        item.add("response", responses);
+        return item;
+    }
+
+    private static JsonObject requestBody(int index) {
+        JsonObject body = new JsonObject();
+        body.addProperty("name", "name " + index);
+        body.addProperty("count", index);
+        body.add("address", address(index));
+        return body;
+    }
+
+    private static JsonObject responseBody(String resource, int index) {
+        JsonObject body = new JsonObject();
+        body.addProperty("id", index);
+        body.addProperty("resource", resource);
+        body.addProperty("score", index + 0.5);
+        body.add("address", address(index));
+
+        JsonArray entries = new JsonArray();
+        for (int i = 0; i < 3; i++) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("key", "key" + i);
+            entry.addProperty("value", i * index);
+            if (i == index % 3) {
+                entry.addProperty("note" + index, true);
+            }
+            entries.add(entry);
+        }
+        body.add("entries", entries);
+        return body;
+    }
+
+    private static JsonObject address(int index) {
+        JsonObject address = new JsonObject();
+        address.addProperty("street", "Main " + index);
+        address.addProperty("zip", String.valueOf(10000 + index));
+        return address;
+    }
+}
@@ -0,0 +1,94 @@
+package generators;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Writes generated files into a directory of the file system.
+ * Directories are created once per sink. A file whose content is already on disk is left
+ * untouched, keeping its modification time so that incremental compilation does not see it as changed.
+ */
+public final class DirectorySink implements OutputSink {
+    private final Path root;
+    private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+
+    public DirectorySink(String root) {
+        this.root = Paths.get(root);
+    }
+
+    @Override
+    public boolean write(String path, byte[] content) throws IOException {
+        Path file = root.resolve(path);
+        if (hasContent(file, content)) {
+            return false;
+        }
+
+        Path directory = file.getParent();
+        if (directory != null && !createdDirectories.contains(directory)) {
+            Files.createDirectories(directory);
+            createdDirectories.add(directory);
+        }
+
+        Files.write(file, content);
+        return true;
+    }
+
+    @Override
+    public byte[] read(String path) throws IOException {
+        try {
+            return Files.readAllBytes(root.resolve(path));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public SortedSet<String> list() throws IOException {
+        SortedSet<String> paths = new TreeSet<>();
+        if (!Files.isDirectory(root)) {
+            return paths;
+        }
+
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile)
+                    .forEach(file -> paths.add(root.relativize(file).toString().replace(File.separatorChar, '/')));
+        }
+        return paths;
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return Files.isRegularFile(root.resolve(path));
+    }
+
+    @Override
+    public boolean delete(String path) throws IOException {
+        return Files.deleteIfExists(root.resolve(path));
+    }
+
+    /**
+     * Checks if a file already holds exactly the given bytes. The size is compared first,
+     * so only files of the same length are read.
+     */
+    private static boolean hasContent(Path file, byte[] content) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != content.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(file), content);
+    }
+
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+}
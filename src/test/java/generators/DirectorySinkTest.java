@@ -0,0 +1,80 @@
+package generators;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class DirectorySinkTest {
+    private static final FileTime EARLIER = FileTime.fromMillis(1_000_000_000_000L);
+
+    private Path directory;
+    private DirectorySink sink;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("directory-sink");
+        sink = new DirectorySink(directory.toString());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void unchangedFileKeepsItsModificationTime() throws IOException {
+        Path file = directory.resolve("models/User.java");
+        assertTrue(sink.write("models/User.java", bytes("class User {}\n")));
+        Files.setLastModifiedTime(file, EARLIER);
+
+        assertFalse(sink.write("models/User.java", bytes("class User {}\n")));
+        assertEquals(Files.getLastModifiedTime(file), EARLIER);
+
+        // Same length, different content
+        assertTrue(sink.write("models/User.java", bytes("class Uxer {}\n")));
+        assertEquals(Files.readString(file, StandardCharsets.UTF_8), "class Uxer {}\n");
+        assertTrue(Files.getLastModifiedTime(file).compareTo(EARLIER) > 0);
+    }
+
+    @Test
+    public void filesAreListedReadAndDeletedByRelativePath() throws IOException {
+        sink.write("tests/UsersApiTests.java", bytes("class UsersApiTests {}\n"));
+        sink.write("models/User.java", bytes("class User {}\n"));
+
+        assertEquals(sink.list(), List.of("models/User.java", "tests/UsersApiTests.java"));
+        assertEquals(sink.read("models/User.java"), bytes("class User {}\n"));
+        assertNull(sink.read("models/Order.java"));
+
+        assertTrue(sink.delete("models/User.java"));
+        assertFalse(sink.delete("models/User.java"));
+        assertFalse(sink.exists("models/User.java"));
+        assertEquals(sink.list(), List.of("tests/UsersApiTests.java"));
+    }
+
+    @Test
+    public void missingRootHasNoFiles() throws IOException {
+        assertTrue(new DirectorySink(directory.resolve("missing").toString()).list().isEmpty());
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
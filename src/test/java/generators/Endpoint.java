@@ -0,0 +1,344 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Intermediate representation of a single Postman endpoint item.
+ * Holds the folder path, the request, its raw body and the saved response examples,
+ * so that both generators can work from the same parsed data.
+ */
+@Getter
+public final class Endpoint {
+    private final List<String> folderPath;
+    private final String name;
+    private final JsonObject request;
+    private final String bodyMode;
+    private final Body requestBody;
+    private final List<Example> examples;
+    @Getter(AccessLevel.NONE)
+    private volatile ShapeFingerprint fingerprint;
+
+    private Endpoint(List<String> folderPath, String name, JsonObject request, String bodyMode,
+                     Body requestBody, List<Example> examples) {
+        this.folderPath = folderPath;
+        this.name = name;
+        this.request = request;
+        this.bodyMode = bodyMode;
+        this.requestBody = requestBody;
+        this.examples = examples;
+    }
+
+    /**
+     * Builds an endpoint from a Postman item
+     *
+     * @param folderPath Names of the enclosing folders, outermost first (null for unnamed folders)
+     * @param item       The Postman item object
+     */
+    public static Endpoint fromItem(List<String> folderPath, JsonObject item) {
+        return fromItem(folderPath, item, null, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * Builds an endpoint from a Postman item whose bodies may have been left out of the JSON
+     * by the reader and supplied separately
+     *
+     * @param requestBody          The request body read separately, or null to take it from the item
+     * @param exampleBodies        Response example bodies read separately, keyed by their index in 'response'
+     * @param exampleRequestBodies Bodies of the requests saved with the examples read separately, keyed alike
+     */
+    static Endpoint fromItem(List<String> folderPath, JsonObject item, Body requestBody,
+                             Map<Integer, Body> exampleBodies, Map<Integer, Body> exampleRequestBodies) {
+        String name = item.has("name") ? item.get("name").getAsString() : "Unknown";
+
+        JsonObject request = null;
+        String bodyMode = null;
+
+        if (item.has("request") && item.get("request").isJsonObject()) {
+            request = item.getAsJsonObject("request");
+
+            if (request.has("body") && request.get("body").isJsonObject()) {
+                JsonObject body = request.getAsJsonObject("body");
+                bodyMode = stringOrNull(body.get("mode"));
+
+                String raw = stringOrNull(body.get("raw"));
+                if (requestBody == null && raw != null) {
+                    requestBody = new Body(raw);
+                }
+            }
+        }
+
+        List<Example> examples = new ArrayList<>();
+        if (item.has("response") && item.get("response").isJsonArray()) {
+            JsonArray responses = item.getAsJsonArray("response");
+            for (int i = 0; i < responses.size(); i++) {
+                if (!responses.get(i).isJsonObject()) {
+                    continue;
+                }
+
+                JsonObject response = responses.get(i).getAsJsonObject();
+                String code = stringOrNull(response.get("code"));
+
+                Body body = exampleBodies.get(i);
+                String raw = stringOrNull(response.get("body"));
+                if (body == null && raw != null) {
+                    body = new Body(raw);
+                }
+                Body originalRequestBody = exampleRequestBodies.get(i);
+                if (originalRequestBody == null) {
+                    originalRequestBody = originalRequestBody(response);
+                }
+                examples.add(new Example(i, code, body, originalRequestBody));
+            }
+        }
+
+        return new Endpoint(folderPath, name, request, bodyMode, requestBody,
+                Collections.unmodifiableList(examples));
+    }
+
+    /**
+     * Returns the raw body of the request saved with a response example, or null if it has none
+     */
+    private static Body originalRequestBody(JsonObject response) {
+        JsonElement originalRequest = response.get("originalRequest");
+        if (originalRequest == null || !originalRequest.isJsonObject()) {
+            return null;
+        }
+
+        JsonElement body = originalRequest.getAsJsonObject().get("body");
+        String raw = body != null && body.isJsonObject() ? stringOrNull(body.getAsJsonObject().get("raw")) : null;
+        return raw != null ? new Body(raw) : null;
+    }
+
+    /**
+     * Returns a copy of this endpoint without its response examples
+     */
+    public Endpoint withoutExamples() {
+        return new Endpoint(folderPath, name, request, bodyMode, requestBody, Collections.emptyList());
+    }
+
+    /**
+     * Checks if the Postman item had a request object
+     */
+    public boolean hasRequest() {
+        return request != null;
+    }
+
+    /**
+     * Returns the request URL element, either a string or a Postman URL object
+     */
+    public JsonElement getUrl() {
+        return request != null ? request.get("url") : null;
+    }
+
+    /**
+     * Determines a fingerprint of everything the generators read from this endpoint:
+     * its location, name, request, request body and response examples.
+     * Unchanged endpoints have the same fingerprint in every run, whichever reader produced them.
+     * The fingerprint is computed on the first call.
+     */
+    public ShapeFingerprint fingerprint() {
+        ShapeFingerprint result = fingerprint;
+        if (result == null) {
+            result = computeFingerprint();
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    private ShapeFingerprint computeFingerprint() {
+        ShapeFingerprint.Hasher hasher = new ShapeFingerprint.Hasher().putString("endpoint");
+
+        hasher.putLong(folderPath.size());
+        for (String folderName : folderPath) {
+            putNullable(hasher, folderName);
+        }
+        hasher.putString(name);
+
+        hasher.putLong(request != null ? 1 : 0);
+        if (request != null) {
+            putRequest(hasher, request);
+        }
+        putBody(hasher, requestBody);
+
+        hasher.putLong(examples.size());
+        for (Example example : examples) {
+            hasher.putLong(example.index);
+            putNullable(hasher, example.code);
+            putBody(hasher, example.body);
+            putBody(hasher, example.requestBody);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Hashes the request object without its raw body, which the readers do not keep in the JSON alike
+     */
+    private static void putRequest(ShapeFingerprint.Hasher hasher, JsonObject request) {
+        hasher.putString("{").putLong(request.size());
+        for (Map.Entry<String, JsonElement> entry : request.entrySet()) {
+            hasher.putString(entry.getKey());
+            if ("body".equals(entry.getKey()) && entry.getValue().isJsonObject()) {
+                JsonObject body = entry.getValue().getAsJsonObject().deepCopy();
+                body.remove("raw");
+                putJson(hasher, body);
+            } else {
+                putJson(hasher, entry.getValue());
+            }
+        }
+    }
+
+    private static void putJson(ShapeFingerprint.Hasher hasher, JsonElement element) {
+        if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            hasher.putString("{").putLong(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                hasher.putString(entry.getKey());
+                putJson(hasher, entry.getValue());
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            hasher.putString("[").putLong(array.size());
+            for (JsonElement child : array) {
+                putJson(hasher, child);
+            }
+        } else if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            hasher.putString(primitive.isString() ? "s" : primitive.isNumber() ? "n" : "b");
+            hasher.putString(primitive.getAsString());
+        } else {
+            hasher.putString("null");
+        }
+    }
+
+    /**
+     * Hashes a body by its UTF-8 bytes, so that bodies read from a mapped collection need not be decoded
+     */
+    private static void putBody(ShapeFingerprint.Hasher hasher, Body body) {
+        hasher.putLong(body != null ? 1 : 0);
+        if (body != null) {
+            body.hash(hasher);
+        }
+    }
+
+    private static void putNullable(ShapeFingerprint.Hasher hasher, String value) {
+        hasher.putLong(value != null ? 1 : 0);
+        if (value != null) {
+            hasher.putString(value);
+        }
+    }
+
+    /**
+     * Receives the endpoints of a collection in document order
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void handle(Endpoint endpoint) throws IOException;
+    }
+
+    private static String stringOrNull(JsonElement element) {
+        return element != null && element.isJsonPrimitive() ? element.getAsString() : null;
+    }
+
+    /**
+     * A raw request or response body. The body is parsed lazily on first use and the
+     * {@link BodyAnalysis} is kept and shared with later consumers, so each body is parsed at most
+     * once. The generators hold an endpoint only for the run that reads it, or only until it is
+     * processed when the collection is streamed, and its analyses go with it.
+     * Bodies read from a memory-mapped collection are decoded whenever their text is requested.
+     */
+    public static final class Body {
+        private final MappedJsonScanner.StringRange encoded;
+        // The text of a body given as a string; null for bodies that are decoded on demand
+        private final String text;
+        private volatile BodyAnalysis analysis;
+
+        Body(String raw) {
+            this.encoded = null;
+            this.text = raw;
+        }
+
+        Body(MappedJsonScanner.StringRange encoded) {
+            this.encoded = encoded;
+            this.text = null;
+        }
+
+        /**
+         * Returns the body text, decoding it if necessary
+         */
+        public String getRaw() {
+            if (text != null) {
+                return text;
+            }
+            try {
+                return encoded.decode();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Hashes the UTF-8 bytes of the body text; the result does not depend on how the body was read
+         */
+        void hash(ShapeFingerprint.Hasher hasher) {
+            if (text != null) {
+                hasher.putUtf8(text);
+                return;
+            }
+            try {
+                encoded.hash(hasher);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Returns the parse result of this body, parsing it on the first call
+         */
+        public BodyAnalysis analysis() {
+            BodyAnalysis result = analysis;
+            if (result == null) {
+                synchronized (this) {
+                    result = analysis;
+                    if (result == null) {
+                        result = BodyAnalysis.of(getRaw());
+                        analysis = result;
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A saved response example of an endpoint
+     */
+    @Getter
+    public static final class Example {
+        private final int index;
+        private final String code;
+        private final Body body;
+        /**
+         * Raw body of the request saved with the example, or null
+         */
+        private final Body requestBody;
+
+        Example(int index, String code, Body body, Body requestBody) {
+            this.index = index;
+            this.code = code;
+            this.body = body;
+            this.requestBody = requestBody;
+        }
+    }
+}
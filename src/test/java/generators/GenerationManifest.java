@@ -0,0 +1,304 @@
+package generators;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Record of what a generator produced in its output sink, kept between runs so that
+ * only changed input has to be generated again. For every unit of input (a Postman item for
+ * POJOs, a resource for test classes) it stores the fingerprint of that input, the files
+ * produced from it and the classes those files refer to.
+ * <p>
+ * The manifest is only valid for the generator settings it was written with; a manifest written
+ * with other settings or by another version of the generator is ignored.
+ * <p>
+ * Manifests are kept in a store of their own rather than among the generated sources, by default
+ * a {@code .restautomator} directory next to the output directory.
+ */
+final class GenerationManifest {
+    // Bump whenever the generated code changes for the same input
+    static final int VERSION = 10;
+
+    private static final String DIRECTORY = ".restautomator";
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final OutputSink sink;
+    private final OutputSink store;
+    private final String file;
+    private final String settings;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private GenerationManifest(OutputSink sink, OutputSink store, String file, String settings) {
+        this.sink = sink;
+        this.store = store;
+        this.file = file;
+        this.settings = settings;
+    }
+
+    /**
+     * Returns the directory that holds the manifests of generators writing to an output directory:
+     * {@code .restautomator/<name>} next to it, e.g. {@code src/main/.restautomator/java} for
+     * {@code src/main/java}, so that they stay out of the source root
+     */
+    static String defaultDirectory(String outputDir) {
+        Path output = Paths.get(outputDir).toAbsolutePath().normalize();
+        Path parent = output.getParent();
+        if (parent == null) {
+            return output.resolve(DIRECTORY).toString();
+        }
+        return parent.resolve(DIRECTORY).resolve(output.getFileName().toString()).toString();
+    }
+
+    /**
+     * Creates an empty manifest
+     *
+     * @param sink     Sink the generator writes to
+     * @param store    Sink that holds the manifests
+     * @param name     Name of the manifest, unique per generator and package
+     * @param settings Fingerprint of the generator settings that affect the generated code
+     */
+    static GenerationManifest create(OutputSink sink, OutputSink store, String name, ShapeFingerprint settings) {
+        return new GenerationManifest(sink, store, name + ".json", settings.toString());
+    }
+
+    /**
+     * Reads the manifest of the previous run. A missing, unreadable or outdated manifest
+     * yields an empty one, so that everything is generated again; so does a sink that
+     * cannot be read back. A manifest that earlier versions kept in the sink itself is removed.
+     */
+    static GenerationManifest load(OutputSink sink, OutputSink store, String name, ShapeFingerprint settings) {
+        GenerationManifest manifest = create(sink, store, name, settings);
+        if (!sink.isPersistent()) {
+            return manifest;
+        }
+
+        try {
+            if (store != sink) {
+                sink.delete(DIRECTORY + "/" + manifest.file);
+            }
+
+            byte[] content = store.read(manifest.file);
+            if (content == null) {
+                return manifest;
+            }
+
+            Stored stored = GSON.fromJson(new String(content, StandardCharsets.UTF_8), Stored.class);
+            if (stored != null && stored.version == VERSION && manifest.settings.equals(stored.settings)
+                    && stored.entries != null) {
+                manifest.entries.putAll(stored.entries);
+            }
+        } catch (IOException | JsonParseException e) {
+            System.err.println("Ignoring unreadable manifest " + manifest.file + " in " + store + ": " + e.getMessage());
+        }
+        return manifest;
+    }
+
+    /**
+     * Reads all manifests kept in a store and maps every recorded file to the units of input
+     * it was produced from, e.g. {@code models/User.java} to the Postman item {@code Users/Get user}
+     */
+    static SortedMap<String, List<String>> origins(OutputSink store) throws IOException {
+        SortedMap<String, List<String>> origins = new TreeMap<>();
+        if (!store.isPersistent()) {
+            return origins;
+        }
+
+        for (String path : store.list()) {
+            if (!path.endsWith(".json")) {
+                continue;
+            }
+            byte[] content = store.read(path);
+            if (content == null) {
+                continue;
+            }
+
+            try {
+                Stored stored = GSON.fromJson(new String(content, StandardCharsets.UTF_8), Stored.class);
+                if (stored == null || stored.version != VERSION || stored.entries == null) {
+                    continue;
+                }
+                for (Map.Entry<String, Entry> entry : stored.entries.entrySet()) {
+                    for (String file : entry.getValue().getFiles()) {
+                        origins.computeIfAbsent(file, k -> new ArrayList<>()).add(entry.getKey());
+                    }
+                }
+            } catch (JsonParseException e) {
+                System.err.println("Ignoring unreadable manifest " + path + " in " + store + ": " + e.getMessage());
+            }
+        }
+        return origins;
+    }
+
+    /**
+     * Returns the entry recorded for a unit of input, or null if there is none
+     */
+    Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Records the entry of a unit of input. May be called concurrently.
+     */
+    void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * Returns all files recorded in this manifest, as paths in the sink
+     */
+    Set<String> files() {
+        Set<String> files = new TreeSet<>();
+        for (Entry entry : entries.values()) {
+            files.addAll(entry.getFiles());
+        }
+        return files;
+    }
+
+    /**
+     * Checks if a file recorded in this manifest still exists
+     */
+    boolean exists(String file) {
+        return sink.exists(file);
+    }
+
+    /**
+     * Deletes the files that a previous run produced and this run did not
+     *
+     * @return The number of files deleted
+     */
+    int deleteStaleFiles(GenerationManifest previous) throws IOException {
+        Set<String> current = files();
+        int deleted = 0;
+        for (String stale : previous.files()) {
+            if (!current.contains(stale) && sink.delete(stale)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Removes the stored manifest, so that a run that does not complete leaves no manifest behind
+     */
+    void discard() throws IOException {
+        if (sink.isPersistent()) {
+            store.delete(file);
+        }
+    }
+
+    /**
+     * Stores the manifest with its entries sorted by key, if the sink can be read back
+     */
+    void save() throws IOException {
+        if (!sink.isPersistent()) {
+            return;
+        }
+
+        Stored stored = new Stored();
+        stored.version = VERSION;
+        stored.settings = settings;
+        stored.entries = new TreeMap<>(entries);
+
+        store.write(file, GSON.toJson(stored).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * What was generated from one unit of input
+     */
+    static final class Entry {
+        private final String fingerprint;
+        private final List<String> files;
+        private final List<ClassRecord> classes;
+        private final Map<String, String> references;
+
+        /**
+         * @param fingerprint Fingerprint of the input
+         * @param files       Files produced from the input, as paths in the sink
+         * @param classes     Classes planned for the input, whether or not they were produced from it
+         * @param references  Classes the produced files refer to, keyed by their shape fingerprint
+         */
+        Entry(ShapeFingerprint fingerprint, List<String> files, List<ClassRecord> classes,
+              Map<String, String> references) {
+            this.fingerprint = fingerprint.toString();
+            this.files = new ArrayList<>(files);
+            this.classes = new ArrayList<>(classes);
+            this.references = new LinkedHashMap<>(references);
+        }
+
+        boolean hasFingerprint(ShapeFingerprint fingerprint) {
+            return fingerprint.toString().equals(this.fingerprint);
+        }
+
+        List<String> getFiles() {
+            return files != null ? Collections.unmodifiableList(files) : Collections.emptyList();
+        }
+
+        List<ClassRecord> getClasses() {
+            return classes != null ? Collections.unmodifiableList(classes) : Collections.emptyList();
+        }
+
+        Map<String, String> getReferences() {
+            return references != null ? Collections.unmodifiableMap(references) : Collections.emptyMap();
+        }
+    }
+
+    /**
+     * A class planned for a unit of input: its name and the fingerprint of its shape
+     */
+    static final class ClassRecord {
+        private final String name;
+        // Only stored if it differs from the name
+        private final String preferredName;
+        // Only stored if the class has one
+        private final String alias;
+        private final String shape;
+
+        ClassRecord(String name, String preferredName, String alias, ShapeFingerprint shape) {
+            this.name = name;
+            this.preferredName = name.equals(preferredName) ? null : preferredName;
+            this.alias = alias;
+            this.shape = shape.toString();
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getPreferredName() {
+            return preferredName != null ? preferredName : name;
+        }
+
+        String getAlias() {
+            return alias;
+        }
+
+        ShapeFingerprint getShape() {
+            return ShapeFingerprint.parse(shape);
+        }
+    }
+
+    /**
+     * Serialized form of the manifest
+     */
+    private static final class Stored {
+        private int version;
+        private String settings;
+        private Map<String, Entry> entries;
+    }
+}
@@ -0,0 +1,131 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class GenerationManifestTest {
+    private Path directory;
+    private Path collection;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("generation-manifest");
+        collection = directory.resolve("collection.json");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void manifestIsKeptNextToTheSourceRoot() throws IOException {
+        Path output = directory.resolve("src/main/java");
+        Path legacy = output.resolve(".restautomator/pojos-models.json");
+        Files.createDirectories(legacy.getParent());
+        Files.writeString(legacy, "{}", StandardCharsets.UTF_8);
+        PojoGenerator generator = new PojoGenerator.Config().setOutputDir(output.toString()).build();
+
+        writeCollection(endpoint("GetUser", "{\"id\":1}"), endpoint("GetOrder", "{\"total\":1.5}"));
+        generator.generatePojos(collection.toString());
+
+        assertTrue(Files.isRegularFile(directory.resolve("src/main/.restautomator/java/pojos-models.json")));
+        assertFalse(Files.exists(legacy));
+        assertTrue(Files.exists(output.resolve("models/UsersGetOrderResponse200.java")));
+
+        // The manifest read back from its own directory tells which classes became stale
+        writeCollection(endpoint("GetUser", "{\"id\":1}"));
+        generator.generatePojos(collection.toString());
+
+        assertTrue(Files.exists(output.resolve("models/UsersGetUserResponse200.java")));
+        assertFalse(Files.exists(output.resolve("models/UsersGetOrderResponse200.java")));
+    }
+
+    @Test
+    public void compilerNamesTheItemsOfProblemsFromTheManifestSink() throws IOException {
+        MemorySink sources = new MemorySink();
+        MemorySink manifests = new MemorySink();
+        new PojoGenerator.Config()
+                .setOutputSink(sources)
+                .setManifestSink(manifests)
+                .setUseLombok(false)
+                .setUseJacksonAnnotations(false)
+                .build()
+                .generatePojos(writeCollection(endpoint("GetUser", "{\"id\":1}")));
+
+        assertEquals(manifests.list(), List.of("pojos-models.json"));
+        assertEquals(sources.list(), List.of("models/UsersGetUserResponse200.java"));
+
+        sources.write("models/UsersGetUserResponse200.java",
+                "package models;\npublic class UsersGetUserResponse200 {\n    private Missing id;\n}\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        InMemoryCompiler.Result result = new InMemoryCompiler.Config()
+                .setOptions(List.of("-proc:none"))
+                .setManifestSink(manifests)
+                .build()
+                .compile(sources);
+
+        assertFalse(result.isSuccess());
+        assertEquals(result.getErrors().get(0).getOrigins(), List.of("Users/GetUser"));
+    }
+
+    /**
+     * Writes a collection with a single folder of endpoints and returns its path
+     */
+    private String writeCollection(JsonObject... endpoints) throws IOException {
+        JsonArray items = new JsonArray();
+        for (JsonObject endpoint : endpoints) {
+            items.add(endpoint);
+        }
+        JsonObject folder = new JsonObject();
+        folder.addProperty("name", "Users");
+        folder.add("item", items);
+        JsonArray folders = new JsonArray();
+        folders.add(folder);
+        JsonObject root = new JsonObject();
+        root.add("item", folders);
+
+        Files.writeString(collection, root.toString(), StandardCharsets.UTF_8);
+        return collection.toString();
+    }
+
+    /**
+     * Returns an endpoint that responds with the given body
+     */
+    private static JsonObject endpoint(String name, String responseBody) {
+        JsonObject response = new JsonObject();
+        response.addProperty("code", 200);
+        response.addProperty("body", responseBody);
+        JsonArray responses = new JsonArray();
+        responses.add(response);
+
+        JsonObject request = new JsonObject();
+        request.addProperty("method", "GET");
+        request.addProperty("url", "{{base_url}}/" + name.toLowerCase());
+
+        JsonObject endpoint = new JsonObject();
+        endpoint.addProperty("name", name);
+        endpoint.add("request", request);
+        endpoint.add("response", responses);
+        return endpoint;
+    }
+}
@@ -0,0 +1,307 @@
+package generators;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing and statistics of one generator run, written as JSON to track how generation scales
+ * across collection versions and to find pathological endpoints.
+ * <p>
+ * Time is attributed to phases with {@link #begin(Phase)} and {@link #end(Timing)}, the latter in a
+ * {@code finally} block. Timings nest: time spent in an inner
+ * phase is not counted again in the outer one. Phase times are summed over all threads, so with
+ * parallel generation they can add up to more than the wall time of the run.
+ * A disabled report ignores everything and costs next to nothing.
+ */
+final class GenerationReport {
+    /**
+     * Phases of a generator run
+     */
+    enum Phase {
+        // Reading the collection and splitting it into endpoints
+        READ,
+        // Parsing request and response bodies
+        PARSE,
+        // Inferring classes, shapes and resource groups
+        INFER,
+        // Rendering sources and class files, including waiting for room in the write queue
+        RENDER,
+        // Writing files, on the writer threads
+        WRITE
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final Timing NOT_TIMED = new Timing(null, null);
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+
+    private final boolean enabled;
+    private final String generator;
+    private final long startNanos = System.nanoTime();
+    private final LongAdder[] wallNanos = new LongAdder[Phase.values().length];
+    private final LongAdder[] cpuNanos = new LongAdder[Phase.values().length];
+    private final Map<String, LongAdder> counts = new ConcurrentSkipListMap<>();
+    private final TopList slowest;
+    private final TopList largestBodies;
+    private final ThreadLocal<Timing> current = new ThreadLocal<>();
+
+    private GenerationReport(boolean enabled, String generator, int topCount) {
+        this.enabled = enabled;
+        this.generator = generator;
+        for (int i = 0; i < wallNanos.length; i++) {
+            wallNanos[i] = new LongAdder();
+            cpuNanos[i] = new LongAdder();
+        }
+        this.slowest = new TopList(topCount);
+        this.largestBodies = new TopList(topCount);
+    }
+
+    /**
+     * Starts a report
+     *
+     * @param generator Name of the generator, e.g. {@code pojos}
+     * @param topCount  Number of slowest items and largest bodies to list
+     */
+    static GenerationReport start(String generator, int topCount) {
+        return new GenerationReport(true, generator, topCount);
+    }
+
+    /**
+     * Returns a report that records nothing
+     */
+    static GenerationReport disabled() {
+        return new GenerationReport(false, null, 0);
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a phase on the current thread
+     *
+     * @return The timing, to be passed to {@link #end(Timing)} on the same thread
+     */
+    Timing begin(Phase phase) {
+        if (!enabled) {
+            return NOT_TIMED;
+        }
+        Timing timing = new Timing(phase, current.get());
+        current.set(timing);
+        return timing;
+    }
+
+    /**
+     * Ends a timing, attributing its time to its phase less the time of the timings nested in it
+     */
+    void end(Timing timing) {
+        if (timing == NOT_TIMED) {
+            return;
+        }
+
+        long wall = System.nanoTime() - timing.startWall;
+        long cpu = cpuTime() - timing.startCpu;
+        add(timing.phase, wall - timing.nestedWall, cpu - timing.nestedCpu);
+
+        Timing parent = timing.parent;
+        if (parent != null) {
+            parent.nestedWall += wall;
+            parent.nestedCpu += cpu;
+            current.set(parent);
+        } else {
+            current.remove();
+        }
+    }
+
+    /**
+     * Adds time measured elsewhere, e.g. by the writer threads
+     */
+    void add(Phase phase, long wall, long cpu) {
+        if (enabled) {
+            wallNanos[phase.ordinal()].add(wall);
+            cpuNanos[phase.ordinal()].add(cpu);
+        }
+    }
+
+    /**
+     * Adds to a counter, e.g. {@code endpoints} or {@code dedupHits}
+     */
+    void count(String counter, long amount) {
+        if (enabled) {
+            counts.computeIfAbsent(counter, k -> new LongAdder()).add(amount);
+        }
+    }
+
+    /**
+     * Records the total time spent on one item, e.g. an endpoint or a resource
+     */
+    void itemTime(String item, long nanos) {
+        if (enabled) {
+            slowest.offer(item, nanos);
+        }
+    }
+
+    /**
+     * Records the size of a body in characters
+     */
+    void bodySize(String item, long chars) {
+        if (enabled) {
+            largestBodies.offer(item, chars);
+        }
+    }
+
+    /**
+     * Returns the elapsed time in nanoseconds if the report is enabled, for measuring items
+     */
+    long nanoTime() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Writes the report as JSON to a file
+     *
+     * @param output Where the generated files went
+     */
+    void write(String file, OutputSink output) throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        JsonObject report = new JsonObject();
+        report.addProperty("generator", generator);
+        report.addProperty("output", output.toString());
+        report.addProperty("wallMillis", millis(System.nanoTime() - startNanos));
+
+        JsonObject phases = new JsonObject();
+        for (Phase phase : Phase.values()) {
+            JsonObject times = new JsonObject();
+            times.addProperty("wallMillis", millis(wallNanos[phase.ordinal()].sum()));
+            times.addProperty("cpuMillis", millis(cpuNanos[phase.ordinal()].sum()));
+            phases.add(phase.name().toLowerCase(Locale.ROOT), times);
+        }
+        report.add("phases", phases);
+
+        JsonObject countsJson = new JsonObject();
+        for (Map.Entry<String, LongAdder> count : counts.entrySet()) {
+            countsJson.addProperty(count.getKey(), count.getValue().sum());
+        }
+        report.add("counts", countsJson);
+
+        JsonArray slowestJson = new JsonArray();
+        for (TopList.Item item : slowest.sorted()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("item", item.name);
+            entry.addProperty("millis", millis(item.value));
+            slowestJson.add(entry);
+        }
+        report.add("slowest", slowestJson);
+
+        JsonArray bodiesJson = new JsonArray();
+        for (TopList.Item item : largestBodies.sorted()) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("item", item.name);
+            entry.addProperty("chars", item.value);
+            bodiesJson.add(entry);
+        }
+        report.add("largestBodies", bodiesJson);
+
+        Path path = Paths.get(file);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.write(path, (GSON.toJson(report) + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    /**
+     * CPU time of the current thread, or 0 if the JVM cannot measure it
+     */
+    static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Timing of one phase on one thread
+     */
+    static final class Timing {
+        private final Phase phase;
+        private final Timing parent;
+        private final long startWall = System.nanoTime();
+        private final long startCpu = cpuTime();
+        private long nestedWall;
+        private long nestedCpu;
+
+        private Timing(Phase phase, Timing parent) {
+            this.phase = phase;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * The items with the largest values seen, keeping at most a fixed number
+     */
+    private static final class TopList {
+        // Smallest value first, ties broken by name so that the result does not depend on arrival order
+        private static final Comparator<Item> ORDER = Comparator.<Item>comparingLong(item -> item.value)
+                .thenComparing(item -> item.name, Comparator.reverseOrder());
+
+        private final int capacity;
+        private final PriorityQueue<Item> items = new PriorityQueue<>(ORDER);
+
+        private TopList(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private synchronized void offer(String name, long value) {
+            if (capacity <= 0) {
+                return;
+            }
+            Item item = new Item(name, value);
+            if (items.size() < capacity) {
+                items.add(item);
+            } else if (ORDER.compare(item, items.peek()) > 0) {
+                items.poll();
+                items.add(item);
+            }
+        }
+
+        /**
+         * Returns the items, largest value first
+         */
+        private synchronized List<Item> sorted() {
+            List<Item> sorted = new ArrayList<>(items);
+            sorted.sort(ORDER.reversed());
+            return sorted;
+        }
+
+        private static final class Item {
+            private final String name;
+            private final long value;
+
+            private Item(String name, long value) {
+                this.name = name;
+                this.value = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class GenerationReportTest {
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("generation-report");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void nestedTimeIsCountedOnce() throws Exception {
+        GenerationReport report = GenerationReport.start("pojos", 2);
+
+        GenerationReport.Timing reading = report.begin(GenerationReport.Phase.READ);
+        try {
+            GenerationReport.Timing parsing = report.begin(GenerationReport.Phase.PARSE);
+            try {
+                Thread.sleep(100);
+            } finally {
+                report.end(parsing);
+            }
+        } finally {
+            report.end(reading);
+        }
+        report.count("endpoints", 2);
+        report.count("endpoints", 1);
+        report.itemTime("Users/GetUser", 3_000_000);
+        report.itemTime("Users/ListUsers", 1_000_000);
+        report.itemTime("Users/CreateUser", 2_000_000);
+        report.bodySize("Users/GetUser response", 120);
+
+        JsonObject json = write(report);
+
+        assertEquals(json.get("generator").getAsString(), "pojos");
+        JsonObject phases = json.getAsJsonObject("phases");
+        assertEquals(phases.keySet().toString(), "[read, parse, infer, render, write]");
+        assertTrue(phases.getAsJsonObject("parse").get("wallMillis").getAsDouble() >= 100, phases.toString());
+        assertTrue(phases.getAsJsonObject("read").get("wallMillis").getAsDouble() < 50, phases.toString());
+        assertEquals(json.getAsJsonObject("counts").get("endpoints").getAsLong(), 3);
+
+        JsonArray slowest = json.getAsJsonArray("slowest");
+        assertEquals(slowest.size(), 2);
+        assertEquals(slowest.get(0).getAsJsonObject().get("item").getAsString(), "Users/GetUser");
+        assertEquals(slowest.get(0).getAsJsonObject().get("millis").getAsDouble(), 3.0);
+        assertEquals(slowest.get(1).getAsJsonObject().get("item").getAsString(), "Users/CreateUser");
+        assertEquals(json.getAsJsonArray("largestBodies").get(0).getAsJsonObject().get("chars").getAsLong(), 120);
+    }
+
+    @Test
+    public void generatorReportsItsCounts() throws IOException {
+        Path collection = directory.resolve("collection.json");
+        Files.writeString(collection, "{\"item\":[{\"name\":\"Users\",\"item\":["
+                + "{\"name\":\"GetUser\",\"request\":{\"method\":\"GET\",\"url\":\"{{base_url}}/users/1\"},"
+                + "\"response\":[{\"code\":200,\"body\":\"{\\\"id\\\":1,\\\"name\\\":\\\"a\\\"}\"}]},"
+                + "{\"name\":\"CreateUser\",\"request\":{\"method\":\"POST\",\"url\":\"{{base_url}}/users\","
+                + "\"body\":{\"mode\":\"raw\",\"raw\":\"{\\\"name\\\":\\\"a\\\"}\"}},"
+                + "\"response\":[{\"code\":201,\"body\":\"{\\\"id\\\":2,\\\"name\\\":\\\"b\\\"}\"}]}]}]}",
+                StandardCharsets.UTF_8);
+        Path reportFile = directory.resolve("reports/pojos.json");
+
+        new PojoGenerator.Config()
+                .setOutputSink(new MemorySink())
+                .setReportFile(reportFile.toString())
+                .build()
+                .generatePojos(collection.toString());
+
+        JsonObject counts = JsonParser.parseString(Files.readString(reportFile, StandardCharsets.UTF_8))
+                .getAsJsonObject().getAsJsonObject("counts");
+        assertEquals(counts.get("endpoints").getAsLong(), 2);
+        assertEquals(counts.get("bodies").getAsLong(), 3);
+        assertEquals(counts.get("classes").getAsLong(), 2);
+        assertEquals(counts.get("dedupHits").getAsLong(), 1);
+        assertEquals(counts.get("filesWritten").getAsLong(), 2);
+    }
+
+    @Test
+    public void disabledReportWritesNothing() throws IOException {
+        GenerationReport report = GenerationReport.disabled();
+        report.end(report.begin(GenerationReport.Phase.READ));
+        report.count("endpoints", 1);
+
+        Path file = directory.resolve("report.json");
+        report.write(file.toString(), new MemorySink());
+
+        assertFalse(report.isEnabled());
+        assertFalse(Files.exists(file));
+    }
+
+    private JsonObject write(GenerationReport report) throws IOException {
+        Path file = directory.resolve("report.json");
+        report.write(file.toString(), new MemorySink());
+        return JsonParser.parseString(Files.readString(file, StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+}
@@ -0,0 +1,99 @@
+package generators;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Thin client for a {@link GeneratorDaemon}: sends one job and prints the daemon's answer.
+ * <p>
+ * Usage: <code>java generators.GeneratorClient &lt;address&gt; &lt;collection&gt; [setting=value ...]</code>,
+ * e.g. {@code unix:/tmp/generator.sock collection.json pojoOutputDir=src/test/java useLombok=true}.
+ * List and map settings are given as JSON, e.g. {@code mapFields=["*.metrics"]}.
+ * {@code shutdown} in place of the collection stops the daemon. Exits with status 1 if the job failed.
+ */
+public final class GeneratorClient {
+    private GeneratorClient() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GeneratorClient unix:/path/to/socket <collection | shutdown> [setting=value ...]");
+            System.exit(2);
+        }
+
+        JsonObject job = new JsonObject();
+        if ("shutdown".equals(args[1])) {
+            job.addProperty("command", "shutdown");
+        } else {
+            job.addProperty("collection", args[1]);
+        }
+        for (int i = 2; i < args.length; i++) {
+            int separator = args[i].indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected setting=value but got " + args[i]);
+            }
+            addSetting(job, args[i].substring(0, separator), args[i].substring(separator + 1));
+        }
+
+        JsonObject response = submit(args[0], job);
+        if (response.get("ok").getAsBoolean()) {
+            System.out.println("Done in " + response.get("millis").getAsLong() + " ms");
+        } else {
+            System.err.println("Failed after " + response.get("millis").getAsLong() + " ms: "
+                    + response.get("error").getAsString());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Sends a job to a daemon and waits for its response
+     *
+     * @param address {@code unix:/path/to/socket}
+     * @param job     The job, as described in {@link GeneratorDaemon}
+     * @throws IOException If the daemon cannot be reached or closes the connection without answering
+     */
+    public static JsonObject submit(String address, JsonObject job) throws IOException {
+        UnixDomainSocketAddress socketAddress = GeneratorDaemon.parseAddress(address);
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+
+        try (channel;
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            channel.connect(socketAddress);
+            writer.write(job.toString());
+            writer.write('\n');
+            writer.flush();
+
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("Daemon at " + address + " closed the connection without answering");
+            }
+            return JsonParser.parseString(line).getAsJsonObject();
+        }
+    }
+
+    /**
+     * Adds a setting given on the command line, as a boolean, number, JSON array or JSON object
+     * where it looks like one
+     */
+    private static void addSetting(JsonObject job, String name, String value) {
+        if (value.startsWith("[") || value.startsWith("{")) {
+            job.add(name, JsonParser.parseString(value));
+        } else if ("true".equals(value) || "false".equals(value)) {
+            job.addProperty(name, Boolean.parseBoolean(value));
+        } else if (value.matches("-?\\d+")) {
+            job.addProperty(name, Long.parseLong(value));
+        } else {
+            job.addProperty(name, value);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package generators;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import jdk.net.ExtendedSocketOptions;
+import jdk.net.UnixDomainPrincipal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-running generator process that accepts generation jobs over a local socket, so that
+ * jobs do not pay for JVM startup, class loading and JIT warmup. The daemon listens on a Unix-domain
+ * socket ({@code unix:/path/to/socket}) that only the user running it may connect to, since a job
+ * writes and deletes files wherever the daemon can.
+ * <p>
+ * The protocol is line based: a client sends one {@link Job} as a JSON object per line and
+ * receives one JSON object per line with {@code ok}, {@code millis} and, on failure, {@code error}.
+ * A line {@code {"command":"shutdown"}} stops the daemon. Connections are served concurrently;
+ * generators are built once per distinct configuration and reused by later jobs, keeping those of the
+ * most recently used configurations. Jobs that write to the same output directory take turns,
+ * whatever their settings.
+ */
+public class GeneratorDaemon implements Closeable {
+    private static final Logger LOG = LogManager.getLogger(GeneratorDaemon.class);
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    // Number of generators kept for reuse
+    static final int MAX_GENERATORS = 16;
+
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+    private final UserPrincipal owner;
+    private final ExecutorService connections;
+    // Generators by configuration, least recently used first; guarded by itself
+    private final Map<String, CollectionGenerator> generators = new LinkedHashMap<>(16, 0.75f, true);
+    // One lock per output directory, keyed by its normalized absolute path
+    private final Map<Path, Lock> directoryLocks = new ConcurrentHashMap<>();
+    private final AtomicInteger jobCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    private GeneratorDaemon(ServerSocketChannel server, Path socketFile, UserPrincipal owner) {
+        this.server = server;
+        this.socketFile = socketFile;
+        this.owner = owner;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "generator-daemon-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the daemon on <code>java generators.GeneratorDaemon &lt;address&gt;</code>
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: GeneratorDaemon unix:/path/to/socket");
+            System.exit(2);
+        }
+
+        try (GeneratorDaemon daemon = start(args[0])) {
+            System.out.println("Generator daemon listening on " + args[0]);
+            daemon.serve();
+        }
+    }
+
+    /**
+     * Binds the daemon to an address. A stale socket file left by a previous daemon is replaced,
+     * and the new one is made accessible to its owner only.
+     *
+     * @param address {@code unix:/path/to/socket}
+     * @throws IOException If the address cannot be bound
+     */
+    public static GeneratorDaemon start(String address) throws IOException {
+        UnixDomainSocketAddress socketAddress = parseAddress(address);
+        Path socketFile = socketAddress.getPath();
+        Files.deleteIfExists(socketFile);
+
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(socketAddress);
+            try {
+                Files.setPosixFilePermissions(socketFile, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Not a POSIX file system; connections are still checked against the owner where supported
+            }
+            return new GeneratorDaemon(server, socketFile, Files.getOwner(socketFile));
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parses a daemon address of the form {@code unix:/path/to/socket}
+     */
+    static UnixDomainSocketAddress parseAddress(String address) {
+        if (!address.startsWith("unix:")) {
+            throw new IllegalArgumentException("Invalid daemon address, expected unix:/path/to/socket: " + address);
+        }
+        return UnixDomainSocketAddress.of(address.substring("unix:".length()));
+    }
+
+    /**
+     * Accepts connections until the daemon is closed or receives a shutdown command
+     */
+    public void serve() throws IOException {
+        while (!closed) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (AsynchronousCloseException e) {
+                return;
+            }
+            connections.execute(() -> handle(channel));
+        }
+    }
+
+    /**
+     * Stops accepting connections and waits briefly for running jobs
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        connections.shutdown();
+        try {
+            connections.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Files.deleteIfExists(socketFile);
+    }
+
+    /**
+     * Serves the jobs of one connection, one line each. Connections from other users, which
+     * may have connected before the socket file's permissions were restricted, are closed.
+     */
+    private void handle(SocketChannel channel) {
+        try (channel;
+             BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8)) {
+            UserPrincipal peer = peerUser(channel);
+            if (peer != null && !peer.equals(owner)) {
+                LOG.warn("Rejected connection from {}", peer.getName());
+                return;
+            }
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                JsonObject response = process(line);
+                writer.write(GSON.toJson(response));
+                writer.write('\n');
+                writer.flush();
+
+                if (closed) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            LOG.warn("Connection failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the user on the other end of a connection, or null if the platform does not tell
+     */
+    private static UserPrincipal peerUser(SocketChannel channel) throws IOException {
+        try {
+            UnixDomainPrincipal peer = channel.getOption(ExtendedSocketOptions.SO_PEERCRED);
+            return peer.user();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs one request line and returns its response
+     */
+    private JsonObject process(String line) {
+        long start = System.nanoTime();
+        JsonObject response = new JsonObject();
+
+        try {
+            Job job = GSON.fromJson(line, Job.class);
+            if (job == null) {
+                throw new IllegalArgumentException("Empty request");
+            }
+
+            if ("shutdown".equals(job.command)) {
+                response.addProperty("ok", true);
+                closed = true;
+                server.close();
+            } else if (job.command == null || "generate".equals(job.command)) {
+                runJob(job);
+                response.addProperty("ok", true);
+            } else {
+                throw new IllegalArgumentException("Unknown command: " + job.command);
+            }
+        } catch (IOException | RuntimeException e) {
+            response.addProperty("ok", false);
+            response.addProperty("error", e.toString());
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        response.addProperty("millis", millis);
+        return response;
+    }
+
+    private void runJob(Job job) throws IOException {
+        if (job.collection == null) {
+            throw new IllegalArgumentException("No collection given");
+        }
+
+        int jobNumber = jobCount.incrementAndGet();
+        long start = System.nanoTime();
+
+        CollectionGenerator generator = generatorFor(job);
+        List<Lock> held = lockDirectories(generator.getOutputDirectories());
+        try {
+            generator.generateAll(job.collection);
+        } finally {
+            unlock(held);
+        }
+
+        LOG.info("Job {} for {} finished in {} ms", jobNumber, job.collection,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Returns the generator of a job's configuration, building it if it is not cached.
+     * The least recently used generator is dropped once more than {@link #MAX_GENERATORS} are cached.
+     */
+    private CollectionGenerator generatorFor(Job job) {
+        synchronized (generators) {
+            CollectionGenerator generator = generators.computeIfAbsent(job.configurationKey(), k -> job.generator());
+            if (generators.size() > MAX_GENERATORS) {
+                Iterator<CollectionGenerator> eldest = generators.values().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+            return generator;
+        }
+    }
+
+    /**
+     * Returns the number of cached generators
+     */
+    int cachedGenerators() {
+        synchronized (generators) {
+            return generators.size();
+        }
+    }
+
+    /**
+     * Locks output directories for a job. Jobs writing to the same directory share its files and manifests,
+     * so they take turns; the locks are taken in path order, so jobs with overlapping directories cannot deadlock.
+     *
+     * @return The locks held, to be passed to {@link #unlock(List)}
+     */
+    List<Lock> lockDirectories(SortedSet<Path> directories) {
+        List<Lock> held = new ArrayList<>();
+        for (Path directory : directories) {
+            Lock lock = directoryLocks.computeIfAbsent(directory, k -> new ReentrantLock());
+            lock.lock();
+            held.add(lock);
+        }
+        return held;
+    }
+
+    /**
+     * Releases the locks taken by {@link #lockDirectories(SortedSet)}, in reverse order
+     */
+    static void unlock(List<Lock> held) {
+        for (int i = held.size() - 1; i >= 0; i--) {
+            held.get(i).unlock();
+        }
+    }
+
+    /**
+     * A generation request. Settings left out use the defaults of the generators' configs.
+     */
+    static final class Job {
+        private String command;
+        private String collection;
+
+        private String pojoOutputDir;
+        private String pojoPackage;
+        private Boolean useLombok;
+        private Boolean useJacksonAnnotations;
+        private Integer parallelism;
+        private String pojoReportFile;
+        private Integer arraySampleLimit;
+        private Boolean useBoxedTypes;
+        private Boolean usePrimitiveArrays;
+        private Integer mapKeyThreshold;
+        private List<String> mapFields;
+        private List<String> classFields;
+        private String classNaming;
+        private Map<String, String> classAliases;
+
+        private String testOutputDir;
+        private String testPackage;
+        private String baseUrl;
+        private String basePackage;
+        private Boolean generateBaseClass;
+        private Integer maxMethodsPerClass;
+        private Integer maxClassBytes;
+        private String testReportFile;
+
+        /**
+         * Returns a key that is equal for jobs with the same generator settings
+         */
+        private String configurationKey() {
+            JsonObject settings = GSON.toJsonTree(this).getAsJsonObject();
+            settings.remove("command");
+            settings.remove("collection");
+            return settings.toString();
+        }
+
+        private CollectionGenerator generator() {
+            PojoGenerator.Config pojoConfig = new PojoGenerator.Config();
+            if (pojoOutputDir != null) {
+                pojoConfig.setOutputDir(pojoOutputDir);
+            }
+            if (pojoPackage != null) {
+                pojoConfig.setPackageName(pojoPackage);
+            }
+            if (useLombok != null) {
+                pojoConfig.setUseLombok(useLombok);
+            }
+            if (useJacksonAnnotations != null) {
+                pojoConfig.setUseJacksonAnnotations(useJacksonAnnotations);
+            }
+            if (parallelism != null) {
+                pojoConfig.setParallelism(parallelism);
+            }
+            if (pojoReportFile != null) {
+                pojoConfig.setReportFile(pojoReportFile);
+            }
+            if (arraySampleLimit != null) {
+                pojoConfig.setArraySampleLimit(arraySampleLimit);
+            }
+            if (useBoxedTypes != null) {
+                pojoConfig.setUseBoxedTypes(useBoxedTypes);
+            }
+            if (usePrimitiveArrays != null) {
+                pojoConfig.setUsePrimitiveArrays(usePrimitiveArrays);
+            }
+            if (mapKeyThreshold != null) {
+                pojoConfig.setMapKeyThreshold(mapKeyThreshold);
+            }
+            if (mapFields != null) {
+                pojoConfig.setMapFields(mapFields.toArray(new String[0]));
+            }
+            if (classFields != null) {
+                pojoConfig.setClassFields(classFields.toArray(new String[0]));
+            }
+            if (classNaming != null) {
+                pojoConfig.setClassNaming(PojoGenerator.ClassNaming.valueOf(classNaming));
+            }
+            if (classAliases != null) {
+                pojoConfig.setClassAliases(classAliases);
+            }
+
+            TestClassGenerator.Config testConfig = new TestClassGenerator.Config();
+            if (testOutputDir != null) {
+                testConfig.setOutputDir(testOutputDir);
+            }
+            if (testPackage != null) {
+                testConfig.setPackageName(testPackage);
+            }
+            if (baseUrl != null) {
+                testConfig.setBaseUrl(baseUrl);
+            }
+            if (basePackage != null) {
+                testConfig.setBasePackage(basePackage);
+            }
+            if (generateBaseClass != null) {
+                testConfig.setGenerateBaseClass(generateBaseClass);
+            }
+            if (pojoPackage != null) {
+                testConfig.setPojoPackage(pojoPackage);
+            }
+            if (maxMethodsPerClass != null) {
+                testConfig.setMaxMethodsPerClass(maxMethodsPerClass);
+            }
+            if (maxClassBytes != null) {
+                testConfig.setMaxClassBytes(maxClassBytes);
+            }
+            if (testReportFile != null) {
+                testConfig.setReportFile(testReportFile);
+            }
+
+            return new CollectionGenerator(pojoConfig.build(), testConfig.build());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class GeneratorDaemonTest {
+    private Path directory;
+    private String address;
+    private GeneratorDaemon daemon;
+    private Thread server;
+
+    @BeforeMethod
+    public void startDaemon() throws IOException {
+        directory = Files.createTempDirectory("generator-daemon");
+        Files.writeString(directory.resolve("collection.json"), collectionJson(), StandardCharsets.UTF_8);
+
+        address = "unix:" + directory.resolve("daemon.sock");
+        daemon = GeneratorDaemon.start(address);
+        server = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        server.start();
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void stopDaemon() throws IOException, InterruptedException {
+        daemon.close();
+        server.join(10_000);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void jobIsAnsweredWithItsOutcome() throws IOException {
+        JsonObject response = GeneratorClient.submit(address, job("src/main/java", "src/test/java"));
+
+        assertTrue(response.get("ok").getAsBoolean(), response.toString());
+        assertTrue(response.get("millis").getAsLong() >= 0);
+        assertTrue(Files.exists(directory.resolve("src/main/java/models/UsersGetUserResponse200.java")));
+        assertTrue(Files.exists(directory.resolve("src/test/java/tests/UsersApiTests.java")));
+    }
+
+    @Test
+    public void invalidRequestsAreAnsweredWithAnError() throws IOException {
+        JsonObject unknown = new JsonObject();
+        unknown.addProperty("command", "restart");
+        JsonObject withoutCollection = new JsonObject();
+        withoutCollection.addProperty("pojoOutputDir", directory.resolve("out").toString());
+
+        assertError(GeneratorClient.submit(address, unknown), "Unknown command: restart");
+        assertError(GeneratorClient.submit(address, withoutCollection), "No collection given");
+    }
+
+    @Test
+    public void shutdownStopsServing() throws IOException, InterruptedException {
+        JsonObject shutdown = new JsonObject();
+        shutdown.addProperty("command", "shutdown");
+
+        assertTrue(GeneratorClient.submit(address, shutdown).get("ok").getAsBoolean());
+        server.join(10_000);
+        assertFalse(server.isAlive());
+        expectThrows(IOException.class, () -> GeneratorClient.submit(address, job("out", "out")));
+    }
+
+    @Test
+    public void socketIsReservedToItsOwner() throws IOException {
+        Path socket = directory.resolve("daemon.sock");
+
+        assertEquals(Files.getPosixFilePermissions(socket), PosixFilePermissions.fromString("rw-------"));
+        assertEquals(Files.getOwner(socket), Files.getOwner(directory));
+    }
+
+    @Test
+    public void jobsWritingToTheSameDirectoryTakeTurns() throws Exception {
+        Path output = directory.resolve("src/main/java").toAbsolutePath().normalize();
+        List<Lock> held = daemon.lockDirectories(new TreeSet<>(List.of(output)));
+
+        CompletableFuture<JsonObject> job = CompletableFuture.supplyAsync(() -> {
+            try {
+                return GeneratorClient.submit(address, job("src/main/java", "src/test/java"));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            expectThrows(TimeoutException.class, () -> job.get(300, TimeUnit.MILLISECONDS));
+        } finally {
+            GeneratorDaemon.unlock(held);
+        }
+
+        assertTrue(job.get(10, TimeUnit.SECONDS).get("ok").getAsBoolean());
+    }
+
+    @Test
+    public void leastRecentlyUsedGeneratorsAreDropped() throws IOException {
+        for (int i = 0; i < GeneratorDaemon.MAX_GENERATORS + 4; i++) {
+            JsonObject job = job("src/main/java", "src/test/java");
+            job.addProperty("baseUrl", "http://localhost:" + (8000 + i));
+
+            assertTrue(GeneratorClient.submit(address, job).get("ok").getAsBoolean());
+        }
+
+        assertEquals(daemon.cachedGenerators(), GeneratorDaemon.MAX_GENERATORS);
+    }
+
+    private JsonObject job(String pojoOutputDir, String testOutputDir) {
+        JsonObject job = new JsonObject();
+        job.addProperty("collection", directory.resolve("collection.json").toString());
+        job.addProperty("pojoOutputDir", directory.resolve(pojoOutputDir).toString());
+        job.addProperty("testOutputDir", directory.resolve(testOutputDir).toString());
+        return job;
+    }
+
+    private static void assertError(JsonObject response, String error) {
+        assertFalse(response.get("ok").getAsBoolean());
+        assertTrue(response.get("error").getAsString().contains(error), response.toString());
+    }
+
+    private static String collectionJson() {
+        JsonObject response = new JsonObject();
+        response.addProperty("code", 200);
+        response.addProperty("body", "{\"id\":1}");
+        JsonArray responses = new JsonArray();
+        responses.add(response);
+
+        JsonObject request = new JsonObject();
+        request.addProperty("method", "GET");
+        request.addProperty("url", "{{base_url}}/users/1");
+
+        JsonObject endpoint = new JsonObject();
+        endpoint.addProperty("name", "GetUser");
+        endpoint.add("request", request);
+        endpoint.add("response", responses);
+        JsonArray endpoints = new JsonArray();
+        endpoints.add(endpoint);
+
+        JsonObject folder = new JsonObject();
+        folder.addProperty("name", "Users");
+        folder.add("item", endpoints);
+        JsonArray folders = new JsonArray();
+        folders.add(folder);
+        JsonObject root = new JsonObject();
+        root.add("item", folders);
+        return root.toString();
+    }
+}
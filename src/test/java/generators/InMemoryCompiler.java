@@ -0,0 +1,319 @@
+package generators;
+
+import lombok.Getter;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compiles generated sources in the running JVM with the system {@link JavaCompiler}.
+ * Sources are read from an {@link OutputSink} and class files are written to another sink
+ * or discarded, so checking that the generated code compiles needs neither a separate
+ * build process nor files on disk.
+ * <p>
+ * Given the sink the generators keep their manifests in, every reported problem names the Postman items
+ * its source file was generated from: the endpoint for a POJO, the resource for a test class.
+ */
+public class InMemoryCompiler {
+    // Configuration snapshot taken from the Config this compiler was built from
+    private final String classpath;
+    private final List<String> options;
+    private final OutputSink classOutput;
+    private final OutputSink manifests;
+
+    private InMemoryCompiler(Config config) {
+        this.classpath = config.classpath;
+        this.options = new ArrayList<>(config.options);
+        this.classOutput = config.classOutput;
+        this.manifests = config.manifests;
+    }
+
+    /**
+     * Configures the compiler with custom settings
+     */
+    public static class Config {
+        private String classpath = System.getProperty("java.class.path");
+        private List<String> options = new ArrayList<>();
+        private OutputSink classOutput;
+        private OutputSink manifests;
+
+        /**
+         * Sets the classpath the generated code is compiled against; defaults to the classpath of this JVM
+         */
+        public Config setClasspath(String classpath) {
+            this.classpath = classpath;
+            return this;
+        }
+
+        /**
+         * Sets additional javac options, e.g. {@code -proc:none} or {@code --release 17}
+         */
+        public Config setOptions(List<String> options) {
+            this.options = new ArrayList<>(options);
+            return this;
+        }
+
+        /**
+         * Sets the sink class files are written to; without one they are discarded
+         */
+        public Config setClassOutput(OutputSink sink) {
+            this.classOutput = sink;
+            return this;
+        }
+
+        /**
+         * Sets the sink the generators keep their manifests in, to name the Postman items of each problem
+         */
+        public Config setManifestSink(OutputSink sink) {
+            this.manifests = sink;
+            return this;
+        }
+
+        /**
+         * Creates a compiler from the current settings. Later changes to this
+         * config do not affect compilers that were already built.
+         */
+        public InMemoryCompiler build() {
+            return new InMemoryCompiler(this);
+        }
+    }
+
+    /**
+     * Compiles all Java sources of a sink
+     *
+     * @param sources Sink the generators wrote to
+     * @throws IOException If the sources cannot be read or the class files cannot be written
+     */
+    public Result compile(OutputSink sources) throws IOException {
+        List<String> paths = new ArrayList<>();
+        for (String path : sources.list()) {
+            if (path.endsWith(".java")) {
+                paths.add(path);
+            }
+        }
+        return compile(sources, paths);
+    }
+
+    /**
+     * Compiles some of the Java sources of a sink
+     *
+     * @param sources Sink the generators wrote to
+     * @param paths   Paths of the sources to compile
+     * @throws IOException If the sources cannot be read or the class files cannot be written
+     */
+    public Result compile(OutputSink sources, Collection<String> paths) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler available; run on a JDK rather than a JRE");
+        }
+
+        List<JavaFileObject> units = new ArrayList<>();
+        for (String path : paths) {
+            byte[] content = sources.read(path);
+            if (content == null) {
+                throw new IOException("Source " + path + " not found in " + sources);
+            }
+            units.add(new SourceObject(path, new String(content, StandardCharsets.UTF_8)));
+        }
+        if (units.isEmpty()) {
+            return new Result(true, Collections.emptyList(), 0);
+        }
+
+        List<String> arguments = new ArrayList<>(options);
+        if (classpath != null && !classpath.isEmpty()) {
+            arguments.add("-classpath");
+            arguments.add(classpath);
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        boolean success;
+        ClassOutputManager fileManager = new ClassOutputManager(
+                compiler.getStandardFileManager(diagnostics, Locale.ROOT, StandardCharsets.UTF_8), classOutput);
+        try (fileManager) {
+            success = compiler.getTask(null, fileManager, diagnostics, arguments, null, units).call();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Map<String, List<String>> origins = manifests != null
+                ? GenerationManifest.origins(manifests)
+                : Collections.emptyMap();
+        List<Problem> problems = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            String path = diagnostic.getSource() instanceof SourceObject
+                    ? ((SourceObject) diagnostic.getSource()).path
+                    : null;
+            problems.add(new Problem(diagnostic.getKind(), path,
+                    diagnostic.getLineNumber(), diagnostic.getColumnNumber(),
+                    diagnostic.getMessage(Locale.ROOT),
+                    path != null ? origins.getOrDefault(path, Collections.emptyList()) : Collections.emptyList()));
+        }
+
+        return new Result(success, Collections.unmodifiableList(problems), fileManager.classFiles);
+    }
+
+    /**
+     * Outcome of a compilation
+     */
+    @Getter
+    public static final class Result {
+        private final boolean success;
+        private final List<Problem> problems;
+        private final int classFiles;
+
+        private Result(boolean success, List<Problem> problems, int classFiles) {
+            this.success = success;
+            this.problems = problems;
+            this.classFiles = classFiles;
+        }
+
+        /**
+         * Returns only the errors among the problems
+         */
+        public List<Problem> getErrors() {
+            List<Problem> errors = new ArrayList<>();
+            for (Problem problem : problems) {
+                if (problem.getKind() == Diagnostic.Kind.ERROR) {
+                    errors.add(problem);
+                }
+            }
+            return errors;
+        }
+    }
+
+    /**
+     * A compiler diagnostic, with the Postman items its source was generated from
+     */
+    @Getter
+    public static final class Problem {
+        private final Diagnostic.Kind kind;
+        private final String path;
+        private final long line;
+        private final long column;
+        private final String message;
+        private final List<String> origins;
+
+        private Problem(Diagnostic.Kind kind, String path, long line, long column, String message,
+                        List<String> origins) {
+            this.kind = kind;
+            this.path = path;
+            this.line = line;
+            this.column = column;
+            this.message = message;
+            this.origins = origins;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(kind.toString());
+            if (path != null) {
+                text.append(' ').append(path).append(':').append(line);
+            }
+            text.append(": ").append(message);
+            if (!origins.isEmpty()) {
+                text.append(" (generated from ").append(String.join(", ", origins)).append(')');
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * A source held in memory, identified by its path in the sink
+     */
+    private static final class SourceObject extends SimpleJavaFileObject {
+        private final String path;
+        private final String source;
+
+        private SourceObject(String path, String source) {
+            super(uriOf(path), Kind.SOURCE);
+            this.path = path;
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    /**
+     * A class file produced by the compiler, written to the class sink when the compiler closes it
+     */
+    private static final class ClassObject extends SimpleJavaFileObject {
+        private final String path;
+        private final ClassOutputManager manager;
+
+        private ClassObject(String path, ClassOutputManager manager) {
+            super(uriOf(path), Kind.CLASS);
+            this.path = path;
+            this.manager = manager;
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    manager.write(path, toByteArray());
+                }
+            };
+        }
+    }
+
+    /**
+     * Resolves classes against the standard file manager and sends class files to the class sink
+     */
+    private static final class ClassOutputManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final OutputSink classOutput;
+        private int classFiles;
+
+        private ClassOutputManager(StandardJavaFileManager fileManager, OutputSink classOutput) {
+            super(fileManager);
+            this.classOutput = classOutput;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) throws IOException {
+            if (kind != JavaFileObject.Kind.CLASS) {
+                return super.getJavaFileForOutput(location, className, kind, sibling);
+            }
+            return new ClassObject(className.replace('.', '/') + ".class", this);
+        }
+
+        private synchronized void write(String path, byte[] content) throws IOException {
+            classFiles++;
+            if (classOutput != null) {
+                classOutput.write(path, content);
+            }
+        }
+    }
+
+    private static URI uriOf(String path) {
+        try {
+            return new URI("mem", null, "/" + path, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid path " + path, e);
+        }
+    }
+}
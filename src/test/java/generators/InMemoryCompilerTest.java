@@ -0,0 +1,67 @@
+package generators;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class InMemoryCompilerTest {
+
+    @Test
+    public void classFilesAreWrittenToTheClassSink() throws IOException {
+        MemorySink sources = new MemorySink();
+        write(sources, "models/User.java", "package models;\npublic class User {\n    private Address address;\n"
+                + "    public static class Nested {\n    }\n}\n");
+        write(sources, "models/Address.java", "package models;\npublic class Address {\n}\n");
+        MemorySink classes = new MemorySink();
+
+        InMemoryCompiler.Result result = compiler().setClassOutput(classes).build().compile(sources);
+
+        assertTrue(result.isSuccess(), result.getProblems().toString());
+        assertEquals(result.getClassFiles(), 3);
+        assertEquals(classes.list(), List.of("models/Address.class", "models/User$Nested.class", "models/User.class"));
+    }
+
+    @Test
+    public void errorsNameTheirSource() throws IOException {
+        MemorySink sources = new MemorySink();
+        write(sources, "models/User.java", "package models;\npublic class User {\n    private Missing id;\n}\n");
+
+        InMemoryCompiler.Result result = compiler().build().compile(sources);
+
+        assertFalse(result.isSuccess());
+        InMemoryCompiler.Problem error = result.getErrors().get(0);
+        assertEquals(error.getPath(), "models/User.java");
+        assertEquals(error.getLine(), 3);
+        assertTrue(error.getOrigins().isEmpty());
+        assertNull(sources.read("models/User.class"));
+    }
+
+    @Test
+    public void onlyTheGivenSourcesAreCompiled() throws IOException {
+        MemorySink sources = new MemorySink();
+        write(sources, "models/User.java", "package models;\npublic class User {\n}\n");
+        write(sources, "models/Broken.java", "package models;\npublic class Broken {\n");
+
+        InMemoryCompiler compiler = compiler().build();
+
+        assertTrue(compiler.compile(sources, List.of("models/User.java")).isSuccess());
+        assertTrue(compiler.compile(sources, List.of()).isSuccess());
+        expectThrows(IOException.class, () -> compiler.compile(sources, List.of("models/Order.java")));
+    }
+
+    private static InMemoryCompiler.Config compiler() {
+        return new InMemoryCompiler.Config().setOptions(List.of("-proc:none"));
+    }
+
+    private static void write(MemorySink sink, String path, String source) {
+        sink.write(path, source.getBytes(StandardCharsets.UTF_8));
+    }
+}
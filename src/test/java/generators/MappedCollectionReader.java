@@ -0,0 +1,221 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a Postman collection from a memory-mapped file, tokenizing the UTF-8 bytes directly.
+ * Request bodies, response example bodies and the bodies of the requests saved with the examples
+ * are not decoded while reading; they are kept as byte ranges of the mapping and only turned into
+ * strings when a generator asks for them.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class MappedCollectionReader {
+
+    /**
+     * Largest file that fits into a single mapping
+     */
+    static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+    /**
+     * Maps a Postman collection file and hands every endpoint to the handler
+     *
+     * @param collectionPath Path to the Postman collection JSON file
+     * @param handler        Callback invoked for every endpoint
+     * @return false if the collection has no top-level 'item' array
+     * @throws IOException If the file cannot be read or is not valid JSON
+     */
+    public static boolean read(Path collectionPath, Endpoint.Handler handler) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(collectionPath, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_MAPPED_SIZE) {
+                throw new IOException("Collection is too large to be memory-mapped: " + collectionPath);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        MappedJsonScanner scanner = new MappedJsonScanner(buffer);
+        boolean hasItems = false;
+
+        scanner.beginObject();
+        while (scanner.hasNext()) {
+            String key = scanner.nextName();
+            if ("item".equals(key) && scanner.peek() == '[') {
+                readItems(scanner, new ArrayList<>(), handler);
+                hasItems = true;
+            } else {
+                scanner.skipValue();
+            }
+        }
+        scanner.endObject();
+
+        return hasItems;
+    }
+
+    /**
+     * Reads an 'item' array, descending into folders as they are encountered
+     */
+    private static void readItems(MappedJsonScanner scanner, List<String> folderPath, Endpoint.Handler handler)
+            throws IOException {
+        scanner.beginArray();
+        while (scanner.hasNext()) {
+            if (scanner.peek() != '{') {
+                scanner.skipValue();
+                continue;
+            }
+            readItem(scanner, folderPath, handler);
+        }
+        scanner.endArray();
+    }
+
+    /**
+     * Reads a single item. Folders are read recursively; endpoints are turned into an {@link Endpoint}.
+     * Children that come after the folder name are read in place; only children that precede
+     * the name are skipped and read again once the name is known.
+     */
+    private static void readItem(MappedJsonScanner scanner, List<String> folderPath, Endpoint.Handler handler)
+            throws IOException {
+        JsonObject itemObj = new JsonObject();
+        Endpoint.Body requestBody = null;
+        Map<Integer, Endpoint.Body> exampleBodies = new HashMap<>();
+        Map<Integer, Endpoint.Body> exampleRequestBodies = new HashMap<>();
+        int childrenPosition = -1;
+        boolean folder = false;
+
+        scanner.beginObject();
+        while (scanner.hasNext()) {
+            String key = scanner.nextName();
+            byte next = scanner.peek();
+
+            if ("item".equals(key) && next == '[') {
+                folder = true;
+                JsonElement name = itemObj.get("name");
+                if (name != null) {
+                    readChildren(scanner, folderPath, name, handler);
+                } else {
+                    // Remember where the children start and come back once the folder name is known
+                    childrenPosition = scanner.position();
+                    scanner.skipValue();
+                }
+            } else if ("request".equals(key) && next == '{') {
+                JsonObject request = new JsonObject();
+                requestBody = readRequest(scanner, request);
+                itemObj.add(key, request);
+            } else if ("response".equals(key) && next == '[') {
+                itemObj.add(key, readResponses(scanner, exampleBodies, exampleRequestBodies));
+            } else {
+                itemObj.add(key, scanner.readValue());
+            }
+        }
+        scanner.endObject();
+
+        if (childrenPosition >= 0) {
+            int endPosition = scanner.position();
+            scanner.seek(childrenPosition);
+            readChildren(scanner, folderPath, itemObj.get("name"), handler);
+            scanner.seek(endPosition);
+        } else if (!folder) {
+            handler.handle(Endpoint.fromItem(Collections.unmodifiableList(new ArrayList<>(folderPath)),
+                    itemObj, requestBody, exampleBodies, exampleRequestBodies));
+        }
+    }
+
+    /**
+     * Reads the 'item' array of a folder with the folder name appended to the path
+     */
+    private static void readChildren(MappedJsonScanner scanner, List<String> folderPath, JsonElement name,
+                                     Endpoint.Handler handler) throws IOException {
+        folderPath.add(name != null && name.isJsonPrimitive() ? name.getAsString() : null);
+        readItems(scanner, folderPath, handler);
+        folderPath.remove(folderPath.size() - 1);
+    }
+
+    /**
+     * Reads a request object, keeping its raw body as an undecoded byte range
+     *
+     * @return The raw request body, or null if the request has none
+     */
+    private static Endpoint.Body readRequest(MappedJsonScanner scanner, JsonObject request) throws IOException {
+        Endpoint.Body rawBody = null;
+
+        scanner.beginObject();
+        while (scanner.hasNext()) {
+            String key = scanner.nextName();
+            if (!"body".equals(key) || scanner.peek() != '{') {
+                request.add(key, scanner.readValue());
+                continue;
+            }
+
+            JsonObject body = new JsonObject();
+            scanner.beginObject();
+            while (scanner.hasNext()) {
+                String bodyKey = scanner.nextName();
+                if ("raw".equals(bodyKey) && scanner.peek() == '"') {
+                    rawBody = new Endpoint.Body(scanner.nextStringRange());
+                } else {
+                    body.add(bodyKey, scanner.readValue());
+                }
+            }
+            scanner.endObject();
+            request.add(key, body);
+        }
+        scanner.endObject();
+
+        return rawBody;
+    }
+
+    /**
+     * Reads the saved response examples, keeping each body and the raw body of each saved request
+     * as an undecoded byte range
+     */
+    private static JsonElement readResponses(MappedJsonScanner scanner, Map<Integer, Endpoint.Body> exampleBodies,
+                                             Map<Integer, Endpoint.Body> exampleRequestBodies) throws IOException {
+        JsonArray responses = new JsonArray();
+
+        scanner.beginArray();
+        for (int index = 0; scanner.hasNext(); index++) {
+            if (scanner.peek() != '{') {
+                responses.add(scanner.readValue());
+                continue;
+            }
+
+            JsonObject response = new JsonObject();
+            scanner.beginObject();
+            while (scanner.hasNext()) {
+                String key = scanner.nextName();
+                if ("body".equals(key) && scanner.peek() == '"') {
+                    exampleBodies.put(index, new Endpoint.Body(scanner.nextStringRange()));
+                } else if ("originalRequest".equals(key) && scanner.peek() == '{') {
+                    JsonObject request = new JsonObject();
+                    Endpoint.Body requestBody = readRequest(scanner, request);
+                    if (requestBody != null) {
+                        exampleRequestBodies.put(index, requestBody);
+                    }
+                    response.add(key, request);
+                } else {
+                    response.add(key, scanner.readValue());
+                }
+            }
+            scanner.endObject();
+            responses.add(response);
+        }
+        scanner.endArray();
+
+        return responses;
+    }
+}
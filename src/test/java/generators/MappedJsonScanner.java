@@ -0,0 +1,449 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal JSON tokenizer working directly on UTF-8 bytes of a (memory-mapped) buffer.
+ * Values can either be materialized as Gson elements or skipped; strings can be kept
+ * as {@link StringRange}s that are only decoded when needed.
+ * Only absolute reads are used on the buffer, so ranges can be decoded from any thread.
+ */
+final class MappedJsonScanner {
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int pos;
+
+    MappedJsonScanner(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+
+        // Skip a UTF-8 byte order mark, as Gson's JsonReader does
+        if (limit >= 3 && (buffer.get(0) & 0xFF) == 0xEF && (buffer.get(1) & 0xFF) == 0xBB
+                && (buffer.get(2) & 0xFF) == 0xBF) {
+            pos = 3;
+        }
+    }
+
+    int position() {
+        return pos;
+    }
+
+    void seek(int position) {
+        this.pos = position;
+    }
+
+    /**
+     * Returns the next non-whitespace byte without consuming it
+     */
+    byte peek() throws IOException {
+        skipWhitespace();
+        if (pos >= limit) {
+            throw new EOFException("End of input at offset " + pos);
+        }
+        return buffer.get(pos);
+    }
+
+    void beginObject() throws IOException {
+        expect('{');
+    }
+
+    void endObject() throws IOException {
+        expect('}');
+    }
+
+    void beginArray() throws IOException {
+        expect('[');
+    }
+
+    void endArray() throws IOException {
+        expect(']');
+    }
+
+    /**
+     * Checks if the current object or array has another member, consuming a separating comma.
+     * As with Gson's strict reader, members must be separated by exactly one comma.
+     */
+    boolean hasNext() throws IOException {
+        byte b = peek();
+        if (b == '}' || b == ']') {
+            return false;
+        }
+
+        byte previous = previousByte();
+        if (previous == '{' || previous == '[') {
+            if (b == ',') {
+                throw syntaxError("Unexpected ','");
+            }
+            return true;
+        }
+        if (b != ',') {
+            throw syntaxError("Expected ','");
+        }
+        pos++;
+        peek();
+        return true;
+    }
+
+    /**
+     * Returns the last non-whitespace byte before the current position, or 0 at the start
+     */
+    private byte previousByte() {
+        for (int i = pos - 1; i >= 0; i--) {
+            byte b = buffer.get(i);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Reads an object member name and the following colon
+     */
+    String nextName() throws IOException {
+        if (peek() != '"') {
+            throw syntaxError("Expected a member name");
+        }
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Reads the next string value as a byte range without decoding it
+     */
+    StringRange nextStringRange() throws IOException {
+        if (peek() != '"') {
+            throw syntaxError("Expected a string");
+        }
+
+        int start = ++pos;
+        boolean escaped = false;
+        while (true) {
+            if (pos >= limit) {
+                throw new EOFException("Unterminated string starting at offset " + (start - 1));
+            }
+            byte b = buffer.get(pos);
+            if (b == '"') {
+                break;
+            }
+            if (b == '\\') {
+                escaped = true;
+                pos++;
+            }
+            pos++;
+        }
+
+        StringRange range = new StringRange(buffer, start, pos, escaped);
+        pos++;
+        return range;
+    }
+
+    /**
+     * Reads and decodes the next string value
+     */
+    String readString() throws IOException {
+        return nextStringRange().decode();
+    }
+
+    /**
+     * Reads the next value into a Gson element
+     */
+    JsonElement readValue() throws IOException {
+        byte b = peek();
+        switch (b) {
+            case '{': {
+                JsonObject object = new JsonObject();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.add(name, readValue());
+                }
+                endObject();
+                return object;
+            }
+            case '[': {
+                JsonArray array = new JsonArray();
+                beginArray();
+                while (hasNext()) {
+                    array.add(readValue());
+                }
+                endArray();
+                return array;
+            }
+            case '"':
+                return new JsonPrimitive(readString());
+            case 't':
+                expectLiteral("true");
+                return new JsonPrimitive(true);
+            case 'f':
+                expectLiteral("false");
+                return new JsonPrimitive(false);
+            case 'n':
+                expectLiteral("null");
+                return JsonNull.INSTANCE;
+            default:
+                return new JsonPrimitive(new NumberText(readNumberText()));
+        }
+    }
+
+    /**
+     * Skips the next value without materializing it
+     */
+    void skipValue() throws IOException {
+        byte b = peek();
+        switch (b) {
+            case '{':
+                beginObject();
+                while (hasNext()) {
+                    nextStringRange();
+                    expect(':');
+                    skipValue();
+                }
+                endObject();
+                break;
+            case '[':
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case '"':
+                nextStringRange();
+                break;
+            case 't':
+                expectLiteral("true");
+                break;
+            case 'f':
+                expectLiteral("false");
+                break;
+            case 'n':
+                expectLiteral("null");
+                break;
+            default:
+                readNumberText();
+        }
+    }
+
+    private String readNumberText() throws IOException {
+        int start = pos;
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if ((b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.' || b == 'e' || b == 'E') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        if (start == pos) {
+            throw syntaxError("Unexpected character '" + (char) buffer.get(pos) + "'");
+        }
+        return decode(buffer, start, pos);
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (pos >= limit || buffer.get(pos) != literal.charAt(i)) {
+                throw syntaxError("Expected '" + literal + "'");
+            }
+            pos++;
+        }
+    }
+
+    private void expect(char c) throws IOException {
+        if (peek() != c) {
+            throw syntaxError("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private void skipWhitespace() {
+        while (pos < limit) {
+            byte b = buffer.get(pos);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + " at offset " + pos);
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The undecoded UTF-8 bytes of a JSON string value, excluding the quotes
+     */
+    static final class StringRange {
+        private final ByteBuffer buffer;
+        private final int start;
+        private final int end;
+        private final boolean escaped;
+
+        private StringRange(ByteBuffer buffer, int start, int end, boolean escaped) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+            this.escaped = escaped;
+        }
+
+        /**
+         * Size of the encoded string in bytes
+         */
+        int byteLength() {
+            return end - start;
+        }
+
+        /**
+         * Hashes the UTF-8 encoding of the decoded string. Strings without escape sequences are
+         * hashed straight from the buffer, without decoding them.
+         */
+        void hash(ShapeFingerprint.Hasher hasher) throws MalformedJsonException {
+            if (escaped) {
+                hasher.putUtf8(decode());
+            } else {
+                hasher.putBytes(buffer, start, end);
+            }
+        }
+
+        /**
+         * Decodes the string, resolving escape sequences
+         */
+        String decode() throws MalformedJsonException {
+            if (!escaped) {
+                return MappedJsonScanner.decode(buffer, start, end);
+            }
+
+            StringBuilder sb = new StringBuilder(end - start);
+            int segmentStart = start;
+            int i = start;
+            while (i < end) {
+                if (buffer.get(i) != '\\') {
+                    i++;
+                    continue;
+                }
+
+                sb.append(MappedJsonScanner.decode(buffer, segmentStart, i));
+                if (i + 1 >= end) {
+                    throw new MalformedJsonException("Unterminated escape sequence at offset " + i);
+                }
+
+                byte escape = buffer.get(i + 1);
+                i += 2;
+                switch (escape) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append((char) escape);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (i + 4 > end) {
+                            throw new MalformedJsonException("Unterminated escape sequence at offset " + (i - 2));
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(MappedJsonScanner.decode(buffer, i, i + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new MalformedJsonException("Invalid escape sequence at offset " + (i - 2));
+                        }
+                        i += 4;
+                        break;
+                    default:
+                        throw new MalformedJsonException("Invalid escape sequence at offset " + (i - 2));
+                }
+                segmentStart = i;
+            }
+            sb.append(MappedJsonScanner.decode(buffer, segmentStart, end));
+
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A JSON number kept as its source text, like Gson's own lazily parsed numbers
+     */
+    private static final class NumberText extends Number {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+
+        private NumberText(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int intValue() {
+            try {
+                return Integer.parseInt(text);
+            } catch (NumberFormatException e) {
+                return (int) longValue();
+            }
+        }
+
+        @Override
+        public long longValue() {
+            try {
+                return Long.parseLong(text);
+            } catch (NumberFormatException e) {
+                return new BigDecimal(text).longValue();
+            }
+        }
+
+        @Override
+        public float floatValue() {
+            return Float.parseFloat(text);
+        }
+
+        @Override
+        public double doubleValue() {
+            return Double.parseDouble(text);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+
+        @Override
+        public int hashCode() {
+            return text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NumberText && ((NumberText) obj).text.equals(text);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package generators;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps generated files in memory, for embedding the generators, for compiling the
+ * generated code without touching the disk, and for tests.
+ * The same sink can be passed to several runs; later runs then only replace what changed.
+ */
+public final class MemorySink implements OutputSink {
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean write(String path, byte[] content) {
+        byte[] previous = files.put(path, content.clone());
+        return previous == null || !Arrays.equals(previous, content);
+    }
+
+    @Override
+    public byte[] read(String path) {
+        byte[] content = files.get(path);
+        return content != null ? content.clone() : null;
+    }
+
+    @Override
+    public SortedSet<String> list() {
+        return new TreeSet<>(files.keySet());
+    }
+
+    @Override
+    public boolean exists(String path) {
+        return files.containsKey(path);
+    }
+
+    @Override
+    public boolean delete(String path) {
+        return files.remove(path) != null;
+    }
+
+    /**
+     * Returns a snapshot of all files, sorted by path
+     */
+    public SortedMap<String, byte[]> getFiles() {
+        SortedMap<String, byte[]> snapshot = new TreeMap<>();
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            snapshot.put(file.getKey(), file.getValue().clone());
+        }
+        return Collections.unmodifiableSortedMap(snapshot);
+    }
+
+    /**
+     * Returns the content of a file decoded as UTF-8, or null if there is no such file
+     */
+    public String getText(String path) {
+        byte[] content = files.get(path);
+        return content != null ? new String(content, StandardCharsets.UTF_8) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "memory (" + files.size() + " files)";
+    }
+}
@@ -0,0 +1,88 @@
+package generators;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SortedSet;
+
+/**
+ * Destination of generated files. Paths are relative to the root of the sink and use '/'
+ * as separator, e.g. {@code models/User.java}. Implementations must be thread-safe,
+ * as files are written from several I/O threads.
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Writes a file, replacing any previous content
+     *
+     * @return false if the file already had exactly this content and was left untouched
+     * @throws IOException If the file cannot be written
+     */
+    boolean write(String path, byte[] content) throws IOException;
+
+    /**
+     * Reads a file written earlier
+     *
+     * @return The content of the file, or null if there is no such file
+     * @throws IOException If the file exists but cannot be read
+     */
+    byte[] read(String path) throws IOException;
+
+    /**
+     * Lists the paths of all files in the sink, sorted
+     *
+     * @throws IOException If the files cannot be listed
+     */
+    SortedSet<String> list() throws IOException;
+
+    /**
+     * Checks if a file exists
+     */
+    boolean exists(String path);
+
+    /**
+     * Deletes a file
+     *
+     * @return false if there was no such file
+     * @throws IOException If the file cannot be deleted
+     */
+    boolean delete(String path) throws IOException;
+
+    /**
+     * Checks if files written by one generation run can be read by the next one, which
+     * allows regenerating only what changed
+     */
+    default boolean isPersistent() {
+        return true;
+    }
+
+    /**
+     * Finishes the output. Generators never close a sink that was passed to them.
+     */
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Creates a sink that writes into a directory of the file system
+     */
+    static OutputSink directory(String outputDir) {
+        return new DirectorySink(outputDir);
+    }
+
+    /**
+     * Creates a sink that keeps all files in memory
+     */
+    static MemorySink memory() {
+        return new MemorySink();
+    }
+
+    /**
+     * Creates a sink that packs all files into a zip archive, or a jar if the file name ends with .jar
+     *
+     * @throws IOException If the archive cannot be created
+     */
+    static ZipSink zip(Path archive) throws IOException {
+        return new ZipSink(archive);
+    }
+}
@@ -0,0 +1,563 @@
+package generators;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static generators.ClassFileWriter.ACC_PRIVATE;
+import static generators.ClassFileWriter.ACC_PROTECTED;
+import static generators.ClassFileWriter.ACC_PUBLIC;
+import static generators.ClassFileWriter.ACC_SUPER;
+import static generators.ClassFileWriter.Code.*;
+
+/**
+ * Emits generated POJOs directly as class files, skipping annotation processing and javac.
+ * The classes have the API of the generated sources: with Lombok, that of {@code @Data},
+ * {@code @NoArgsConstructor} and {@code @AllArgsConstructor}, including Lombok's accessor names for
+ * primitive booleans and its equals, hashCode and toString semantics, which compare and print primitive
+ * arrays by content; without Lombok, getters, setters and a default constructor.
+ * Generic field types are kept in Signature attributes, and the Jackson annotations of the
+ * sources are emitted as runtime-visible annotations.
+ */
+final class PojoClassEmitter {
+    private static final String OBJECT = "java/lang/Object";
+    private static final String JSON_IGNORE_PROPERTIES = "Lcom/fasterxml/jackson/annotation/JsonIgnoreProperties;";
+    private static final String JSON_PROPERTY = "Lcom/fasterxml/jackson/annotation/JsonProperty;";
+    private static final String JSON_INCLUDE = "Lcom/fasterxml/jackson/annotation/JsonInclude;";
+    private static final String JSON_INCLUDE_INCLUDE = "Lcom/fasterxml/jackson/annotation/JsonInclude$Include;";
+
+    // Lombok's hashCode constants
+    private static final int HASH_PRIME = 59;
+    private static final int HASH_NULL = 43;
+    private static final int HASH_TRUE = 79;
+    private static final int HASH_FALSE = 97;
+
+    // Parameters of a method take at most 255 slots, including this
+    private static final int MAX_PARAMETERS = 254;
+
+    private final String packageName;
+    private final boolean useLombok;
+    private final boolean useJacksonAnnotations;
+
+    PojoClassEmitter(String packageName, boolean useLombok, boolean useJacksonAnnotations) {
+        this.packageName = packageName;
+        this.useLombok = useLombok;
+        this.useJacksonAnnotations = useJacksonAnnotations;
+    }
+
+    /**
+     * A field of a generated class
+     */
+    static final class Field {
+        private final String name;
+        private final String jsonName;
+        private final String type;
+        private final boolean optional;
+
+        /**
+         * @param name     Java name of the field
+         * @param jsonName JSON property name if it differs from the Java name and must be annotated, otherwise null
+         * @param type     Java type as written in the source, e.g. {@code List<String>}
+         * @param optional Whether the property is left out of serialized JSON while null
+         */
+        Field(String name, String jsonName, String type, boolean optional) {
+            this.name = name;
+            this.jsonName = jsonName;
+            this.type = type;
+            this.optional = optional;
+        }
+    }
+
+    /**
+     * Returns the class file of a generated class
+     */
+    byte[] emit(String className, List<Field> fields) {
+        String owner = internalName(className);
+        ClassFileWriter writer = new ClassFileWriter(ACC_PUBLIC | ACC_SUPER, owner, OBJECT);
+
+        if (useJacksonAnnotations) {
+            writer.addAnnotation(new ClassFileWriter.Annotation(JSON_IGNORE_PROPERTIES).with("ignoreUnknown", true));
+        }
+
+        for (Field field : fields) {
+            List<ClassFileWriter.Annotation> annotations = new ArrayList<>();
+            if (useJacksonAnnotations && field.optional) {
+                annotations.add(new ClassFileWriter.Annotation(JSON_INCLUDE)
+                        .withEnum("value", JSON_INCLUDE_INCLUDE, "NON_NULL"));
+            }
+            if (useJacksonAnnotations && field.jsonName != null) {
+                annotations.add(new ClassFileWriter.Annotation(JSON_PROPERTY).with("value", field.jsonName));
+            }
+            writer.addField(ACC_PRIVATE, field.name, descriptor(field.type), signature(field.type), annotations);
+        }
+
+        addNoArgsConstructor(writer);
+        if (useLombok && !fields.isEmpty() && parameterSlots(fields) <= MAX_PARAMETERS) {
+            addAllArgsConstructor(writer, owner, fields);
+        }
+
+        for (Field field : fields) {
+            addGetter(writer, owner, field);
+        }
+        for (Field field : fields) {
+            addSetter(writer, owner, field);
+        }
+
+        if (useLombok) {
+            List<Field> compared = byEqualsRank(fields);
+            addEquals(writer, owner, compared);
+            addCanEqual(writer, owner);
+            addHashCode(writer, owner, compared);
+            addToString(writer, owner, className, fields);
+        }
+
+        return writer.toByteArray();
+    }
+
+    /**
+     * Orders fields as Lombok compares and hashes them: primitives first, then primitive wrappers,
+     * then other types, otherwise in declaration order
+     */
+    private static List<Field> byEqualsRank(List<Field> fields) {
+        List<Field> ordered = new ArrayList<>(fields.size());
+        for (Field field : fields) {
+            if (isPrimitive(field.type)) {
+                ordered.add(field);
+            }
+        }
+        for (Field field : fields) {
+            if (isWrapper(field.type)) {
+                ordered.add(field);
+            }
+        }
+        for (Field field : fields) {
+            if (!isPrimitive(field.type) && !isWrapper(field.type)) {
+                ordered.add(field);
+            }
+        }
+        return ordered;
+    }
+
+    private static boolean isWrapper(String type) {
+        switch (type) {
+            case "Boolean":
+            case "Integer":
+            case "Long":
+            case "Double":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isPrimitive(String type) {
+        switch (type) {
+            case "boolean":
+            case "int":
+            case "long":
+            case "double":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isArray(String type) {
+        return type.endsWith("[]");
+    }
+
+    /**
+     * Returns a reference to the {@code java.util.Arrays} method for the array type of a field,
+     * taking one array, or two for {@code equals}
+     */
+    private int arraysMethod(ClassFileWriter writer, String name, Field field, String returnDescriptor) {
+        String array = descriptor(field.type);
+        String parameters = "equals".equals(name) ? array + array : array;
+        return writer.methodRef("java/util/Arrays", name, "(" + parameters + ")" + returnDescriptor);
+    }
+
+    /**
+     * Returns the number of local variable slots a value of a type takes
+     */
+    private static int slots(String type) {
+        return "long".equals(type) || "double".equals(type) ? 2 : 1;
+    }
+
+    private static int parameterSlots(List<Field> fields) {
+        int slots = 0;
+        for (Field field : fields) {
+            slots += slots(field.type);
+        }
+        return slots;
+    }
+
+    private static boolean hasWideField(List<Field> fields) {
+        return parameterSlots(fields) > fields.size();
+    }
+
+    private static int loadOpcode(String type) {
+        switch (type) {
+            case "boolean":
+            case "int":
+                return ILOAD;
+            case "long":
+                return LLOAD;
+            case "double":
+                return DLOAD;
+            default:
+                return ALOAD;
+        }
+    }
+
+    private static int returnOpcode(String type) {
+        switch (type) {
+            case "boolean":
+            case "int":
+                return IRETURN;
+            case "long":
+                return LRETURN;
+            case "double":
+                return DRETURN;
+            default:
+                return ARETURN;
+        }
+    }
+
+    /**
+     * Returns the getter name: Lombok names the getter of a primitive boolean {@code isX},
+     * or keeps a field name that already starts with {@code is}
+     */
+    private String getterName(Field field) {
+        if (useLombok && "boolean".equals(field.type)) {
+            return hasIsPrefix(field.name) ? field.name : "is" + capitalize(field.name);
+        }
+        return "get" + capitalize(field.name);
+    }
+
+    private String setterName(Field field) {
+        if (useLombok && "boolean".equals(field.type) && hasIsPrefix(field.name)) {
+            return "set" + field.name.substring(2);
+        }
+        return "set" + capitalize(field.name);
+    }
+
+    /**
+     * Checks if Lombok drops the {@code is} prefix of a boolean field name for its accessors, as in {@code isActive}
+     */
+    static boolean hasIsPrefix(String name) {
+        return name.startsWith("is") && name.length() > 2 && !Character.isLowerCase(name.charAt(2));
+    }
+
+    private static void addNoArgsConstructor(ClassFileWriter writer) {
+        ClassFileWriter.Code code = new ClassFileWriter.Code(1, 1)
+                .var(ALOAD, 0)
+                .op(INVOKESPECIAL, writer.methodRef(OBJECT, "<init>", "()V"))
+                .op(RETURN);
+        writer.addMethod(ACC_PUBLIC, "<init>", "()V", null, code);
+    }
+
+    private void addAllArgsConstructor(ClassFileWriter writer, String owner, List<Field> fields) {
+        StringBuilder descriptor = new StringBuilder("(");
+        StringBuilder signature = new StringBuilder("(");
+        boolean generic = false;
+        for (Field field : fields) {
+            descriptor.append(descriptor(field.type));
+            signature.append(typeSignature(field.type));
+            generic |= field.type.contains("<");
+        }
+        descriptor.append(")V");
+        signature.append(")V");
+
+        ClassFileWriter.Code code = new ClassFileWriter.Code(hasWideField(fields) ? 3 : 2, parameterSlots(fields) + 1)
+                .var(ALOAD, 0)
+                .op(INVOKESPECIAL, writer.methodRef(OBJECT, "<init>", "()V"));
+        int slot = 1;
+        for (Field field : fields) {
+            code.var(ALOAD, 0)
+                    .var(loadOpcode(field.type), slot)
+                    .op(PUTFIELD, writer.fieldRef(owner, field.name, descriptor(field.type)));
+            slot += slots(field.type);
+        }
+        code.op(RETURN);
+
+        writer.addMethod(ACC_PUBLIC, "<init>", descriptor.toString(), generic ? signature.toString() : null, code);
+    }
+
+    private void addGetter(ClassFileWriter writer, String owner, Field field) {
+        String descriptor = descriptor(field.type);
+        String signature = signature(field.type);
+
+        ClassFileWriter.Code code = new ClassFileWriter.Code(slots(field.type), 1)
+                .var(ALOAD, 0)
+                .op(GETFIELD, writer.fieldRef(owner, field.name, descriptor))
+                .op(returnOpcode(field.type));
+        writer.addMethod(ACC_PUBLIC, getterName(field), "()" + descriptor,
+                signature != null ? "()" + signature : null, code);
+    }
+
+    private void addSetter(ClassFileWriter writer, String owner, Field field) {
+        String descriptor = descriptor(field.type);
+        String signature = signature(field.type);
+
+        int size = 1 + slots(field.type);
+        ClassFileWriter.Code code = new ClassFileWriter.Code(size, size)
+                .var(ALOAD, 0)
+                .var(loadOpcode(field.type), 1)
+                .op(PUTFIELD, writer.fieldRef(owner, field.name, descriptor))
+                .op(RETURN);
+        writer.addMethod(ACC_PUBLIC, setterName(field), "(" + descriptor + ")V",
+                signature != null ? "(" + signature + ")V" : null, code);
+    }
+
+    /**
+     * Emits Lombok's equals: same instance, then type and canEqual, then every field: primitives
+     * by value, doubles with {@code Double.compare}, objects with null-safe equals
+     */
+    private void addEquals(ClassFileWriter writer, String owner, List<Field> fields) {
+        ClassFileWriter.Code code = new ClassFileWriter.Code(hasWideField(fields) ? 4 : 2, 3);
+
+        code.var(ALOAD, 1).var(ALOAD, 0);
+        int notSame = code.branch(IF_ACMPNE);
+        code.op(ICONST_1).op(IRETURN);
+        code.bind(notSame);
+
+        code.var(ALOAD, 1).op(INSTANCEOF, writer.classRef(owner));
+        int sameType = code.branch(IFNE);
+        code.op(ICONST_0).op(IRETURN);
+        code.bind(sameType);
+
+        code.var(ALOAD, 1).op(CHECKCAST, writer.classRef(owner)).var(ASTORE, 2);
+        code.var(ALOAD, 2).var(ALOAD, 0)
+                .op(INVOKEVIRTUAL, writer.methodRef(owner, "canEqual", "(Ljava/lang/Object;)Z"));
+        int canEqual = code.branch(IFNE);
+        code.op(ICONST_0).op(IRETURN);
+        code.bind(canEqual);
+
+        for (Field field : fields) {
+            int fieldRef = writer.fieldRef(owner, field.name, descriptor(field.type));
+            code.var(ALOAD, 0).op(GETFIELD, fieldRef)
+                    .var(ALOAD, 2).op(GETFIELD, fieldRef);
+
+            int equal;
+            switch (field.type) {
+                case "boolean":
+                case "int":
+                    equal = code.branch(IF_ICMPEQ);
+                    break;
+                case "long":
+                    equal = code.op(LCMP).branch(IFEQ);
+                    break;
+                case "double":
+                    equal = code.op(INVOKESTATIC, writer.methodRef("java/lang/Double", "compare", "(DD)I"))
+                            .branch(IFEQ);
+                    break;
+                default:
+                    equal = isArray(field.type)
+                            ? code.op(INVOKESTATIC, arraysMethod(writer, "equals", field, "Z")).branch(IFNE)
+                            : code.op(INVOKESTATIC, writer.methodRef("java/util/Objects", "equals",
+                            "(Ljava/lang/Object;Ljava/lang/Object;)Z")).branch(IFNE);
+                    break;
+            }
+            code.op(ICONST_0).op(IRETURN);
+            code.bind(equal);
+        }
+
+        code.op(ICONST_1).op(IRETURN);
+        writer.addMethod(ACC_PUBLIC, "equals", "(Ljava/lang/Object;)Z", null, code);
+    }
+
+    private static void addCanEqual(ClassFileWriter writer, String owner) {
+        ClassFileWriter.Code code = new ClassFileWriter.Code(1, 2)
+                .var(ALOAD, 1)
+                .op(INSTANCEOF, writer.classRef(owner))
+                .op(IRETURN);
+        writer.addMethod(ACC_PROTECTED, "canEqual", "(Ljava/lang/Object;)Z", null, code);
+    }
+
+    /**
+     * Emits Lombok's hashCode: {@code result * 59 + hash} per field, where the hash is the value of
+     * an int, {@code 79} or {@code 97} for a boolean, the folded bits of a long or double,
+     * and {@code 43} or {@code hashCode()} for an object
+     */
+    private void addHashCode(ClassFileWriter writer, String owner, List<Field> fields) {
+        ClassFileWriter.Code code = new ClassFileWriter.Code(hasWideField(fields) ? 6 : 3, 2);
+        code.op(ICONST_1).var(ISTORE, 1);
+
+        for (Field field : fields) {
+            code.var(ILOAD, 1).bipush(HASH_PRIME).op(IMUL)
+                    .var(ALOAD, 0).op(GETFIELD, writer.fieldRef(owner, field.name, descriptor(field.type)));
+
+            switch (field.type) {
+                case "int":
+                    break;
+                case "boolean": {
+                    int isFalse = code.branch(IFEQ);
+                    code.bipush(HASH_TRUE);
+                    int done = code.branch(GOTO);
+                    code.bind(isFalse);
+                    code.bipush(HASH_FALSE);
+                    code.bind(done);
+                    break;
+                }
+                case "double":
+                    code.op(INVOKESTATIC, writer.methodRef("java/lang/Double", "doubleToLongBits", "(D)J"));
+                    foldLong(code);
+                    break;
+                case "long":
+                    foldLong(code);
+                    break;
+                default: {
+                    if (isArray(field.type)) {
+                        code.op(INVOKESTATIC, arraysMethod(writer, "hashCode", field, "I"));
+                        break;
+                    }
+                    code.op(DUP);
+                    int notNull = code.branch(IFNONNULL);
+                    code.op(POP).bipush(HASH_NULL);
+                    int done = code.branch(GOTO);
+                    code.bind(notNull);
+                    code.op(INVOKEVIRTUAL, writer.methodRef(OBJECT, "hashCode", "()I"));
+                    code.bind(done);
+                    break;
+                }
+            }
+            code.op(IADD).var(ISTORE, 1);
+        }
+
+        code.var(ILOAD, 1).op(IRETURN);
+        writer.addMethod(ACC_PUBLIC, "hashCode", "()I", null, code);
+    }
+
+    /**
+     * Folds the long on the stack into an int: {@code (int) (value >>> 32 ^ value)}
+     */
+    private static void foldLong(ClassFileWriter.Code code) {
+        code.op(DUP2).bipush(32).op(LUSHR).op(LXOR).op(L2I);
+    }
+
+    /**
+     * Emits Lombok's toString: {@code ClassName(field=value, other=value)}
+     */
+    private void addToString(ClassFileWriter writer, String owner, String className, List<Field> fields) {
+        String builder = "java/lang/StringBuilder";
+        int appendString = writer.methodRef(builder, "append", "(Ljava/lang/String;)Ljava/lang/StringBuilder;");
+
+        ClassFileWriter.Code code = new ClassFileWriter.Code(3, 1)
+                .op(NEW, writer.classRef(builder))
+                .op(DUP)
+                .ldc(writer.stringRef(className + "("))
+                .op(INVOKESPECIAL, writer.methodRef(builder, "<init>", "(Ljava/lang/String;)V"));
+
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            code.ldc(writer.stringRef((i > 0 ? ", " : "") + field.name + "="))
+                    .op(INVOKEVIRTUAL, appendString)
+                    .var(ALOAD, 0).op(GETFIELD, writer.fieldRef(owner, field.name, descriptor(field.type)));
+            if (isArray(field.type)) {
+                code.op(INVOKESTATIC, arraysMethod(writer, "toString", field, "Ljava/lang/String;"))
+                        .op(INVOKEVIRTUAL, appendString);
+            } else {
+                String appended = isPrimitive(field.type) ? descriptor(field.type) : "Ljava/lang/Object;";
+                code.op(INVOKEVIRTUAL, writer.methodRef(builder, "append", "(" + appended + ")Ljava/lang/StringBuilder;"));
+            }
+        }
+
+        code.ldc(writer.stringRef(")"))
+                .op(INVOKEVIRTUAL, appendString)
+                .op(INVOKEVIRTUAL, writer.methodRef(builder, "toString", "()Ljava/lang/String;"))
+                .op(ARETURN);
+        writer.addMethod(ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, code);
+    }
+
+    /**
+     * Returns the erased descriptor of a source type, e.g. {@code Ljava/util/List;} for {@code List<String>}
+     */
+    private String descriptor(String type) {
+        if (isArray(type)) {
+            return "[" + descriptor(type.substring(0, type.length() - 2));
+        }
+        switch (type) {
+            case "boolean":
+                return "Z";
+            case "int":
+                return "I";
+            case "long":
+                return "J";
+            case "double":
+                return "D";
+            default:
+                break;
+        }
+        int generic = type.indexOf('<');
+        return "L" + internalName(generic >= 0 ? type.substring(0, generic) : type) + ";";
+    }
+
+    /**
+     * Returns the generic signature of a source type, or null if it is not generic
+     */
+    private String signature(String type) {
+        return type.contains("<") ? typeSignature(type) : null;
+    }
+
+    private String typeSignature(String type) {
+        int generic = type.indexOf('<');
+        if (generic < 0) {
+            return descriptor(type);
+        }
+
+        StringBuilder signature = new StringBuilder("L").append(internalName(type.substring(0, generic))).append('<');
+        for (String argument : typeArguments(type.substring(generic + 1, type.lastIndexOf('>')))) {
+            signature.append(typeSignature(argument));
+        }
+        return signature.append(">;").toString();
+    }
+
+    /**
+     * Splits type arguments at the commas that are not nested in other type arguments
+     */
+    private static List<String> typeArguments(String arguments) {
+        List<String> result = new ArrayList<>();
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < arguments.length(); i++) {
+            char c = arguments.charAt(i);
+            if (c == '<') {
+                depth++;
+            } else if (c == '>') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                result.add(arguments.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        result.add(arguments.substring(start).trim());
+        return result;
+    }
+
+    /**
+     * Resolves a simple class name as the source does: java.lang, the imported collections,
+     * or a class of the generated package
+     */
+    private String internalName(String simpleName) {
+        switch (simpleName) {
+            case "Object":
+            case "String":
+            case "Boolean":
+            case "Integer":
+            case "Long":
+            case "Double":
+                return "java/lang/" + simpleName;
+            case "List":
+            case "Map":
+                return "java/util/" + simpleName;
+            default:
+                return packageName.isEmpty() ? simpleName : packageName.replace('.', '/') + "/" + simpleName;
+        }
+    }
+
+    /**
+     * Capitalizes accessor names the same way the source generator does
+     */
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : name.substring(0, 1).toUpperCase() + name.substring(1);
+    }
+}
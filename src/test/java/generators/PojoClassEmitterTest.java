@@ -0,0 +1,156 @@
+package generators;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class PojoClassEmitterTest {
+    private static final String BODY = "{\"id\":1,\"total\":10000000000,\"score\":1.5,\"active\":true,"
+            + "\"name\":\"a\",\"note\":null,\"tags\":[\"x\"],\"counts\":[1,2],"
+            + "\"address\":{\"street\":\"Main\",\"zip\":\"123\"},\"first-name\":\"b\"}";
+
+    private Path collection;
+
+    @BeforeMethod
+    public void writeCollection() throws IOException {
+        collection = Files.createTempFile("pojo-class-emitter", ".json");
+        Files.writeString(collection, "{\"item\":[{\"name\":\"Users\",\"item\":[{\"name\":\"GetUser\","
+                + "\"request\":{\"method\":\"GET\",\"url\":\"{{base_url}}/users/1\"},"
+                + "\"response\":[{\"code\":200,\"body\":" + quote(BODY) + "}]}]}]}", StandardCharsets.UTF_8);
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteCollection() throws IOException {
+        Files.deleteIfExists(collection);
+    }
+
+    @Test
+    public void emittedClassesMatchCompiledSources() throws Exception {
+        MemorySink sink = new MemorySink();
+        new PojoGenerator.Config()
+                .setOutputSink(sink)
+                .setUseJacksonAnnotations(false)
+                .setUsePrimitiveArrays(true)
+                .setEmitClassFiles(true)
+                .build()
+                .generatePojos(collection.toString());
+
+        MemorySink sources = new MemorySink();
+        MemorySink emitted = new MemorySink();
+        for (Map.Entry<String, byte[]> file : sink.getFiles().entrySet()) {
+            (file.getKey().endsWith(".java") ? sources : emitted).write(file.getKey(), file.getValue());
+        }
+        MemorySink compiled = new MemorySink();
+        InMemoryCompiler.Result result = new InMemoryCompiler.Config().setClassOutput(compiled).build().compile(sources);
+        assertTrue(result.isSuccess(), result.getProblems().toString());
+        assertEquals(emitted.list(), compiled.list());
+        assertEquals(emitted.list().size(), 2, emitted.list().toString());
+
+        for (String path : emitted.list()) {
+            String className = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+            Class<?> emittedClass = new SinkClassLoader(emitted).loadClass(className);
+            Class<?> compiledClass = new SinkClassLoader(compiled).loadClass(className);
+
+            assertEquals(publicMethods(emittedClass), publicMethods(compiledClass), className);
+
+            Object fromEmitted = populate(emittedClass);
+            Object fromCompiled = populate(compiledClass);
+            assertEquals(fromEmitted.toString(), fromCompiled.toString());
+            assertEquals(fromEmitted.hashCode(), fromCompiled.hashCode(), fromEmitted.toString());
+            assertEquals(populate(emittedClass), fromEmitted);
+            assertNotEquals(emittedClass.getConstructor().newInstance(), fromEmitted);
+        }
+    }
+
+    private static SortedSet<String> publicMethods(Class<?> type) {
+        SortedSet<String> methods = new TreeSet<>();
+        for (Method method : type.getDeclaredMethods()) {
+            if (Modifier.isPublic(method.getModifiers())) {
+                methods.add(method.getGenericReturnType().getTypeName() + " " + method.getName()
+                        + Arrays.toString(method.getGenericParameterTypes()));
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * Creates an instance with a value in every property, set through its setters
+     */
+    private static Object populate(Class<?> type) throws Exception {
+        Object instance = type.getConstructor().newInstance();
+        for (Method setter : type.getMethods()) {
+            if (setter.getName().startsWith("set") && setter.getParameterCount() == 1) {
+                setter.invoke(instance, valueOf(setter.getParameterTypes()[0], setter.getName()));
+            }
+        }
+        return instance;
+    }
+
+    private static Object valueOf(Class<?> type, String setter) throws Exception {
+        int seed = setter.length();
+        if (type == int.class || type == Integer.class) {
+            return seed;
+        } else if (type == long.class || type == Long.class) {
+            return 10_000_000_000L + seed;
+        } else if (type == double.class || type == Double.class) {
+            return seed + 0.5;
+        } else if (type == boolean.class || type == Boolean.class) {
+            return true;
+        } else if (type == String.class) {
+            return setter.substring(3);
+        } else if (type == int[].class) {
+            return new int[]{seed, 2};
+        } else if (type == List.class) {
+            return new ArrayList<>(List.of(setter.substring(3)));
+        } else if (type == Object.class) {
+            return setter;
+        }
+        return populate(type);
+    }
+
+    private static String quote(String json) {
+        return "\"" + json.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    /**
+     * Loads classes from the class files in a sink
+     */
+    private static final class SinkClassLoader extends ClassLoader {
+        private final OutputSink classes;
+
+        private SinkClassLoader(OutputSink classes) {
+            super(PojoClassEmitterTest.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            try {
+                byte[] content = classes.read(name.replace('.', '/') + ".class");
+                if (content == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                return defineClass(name, content, 0, content.length);
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+    }
+}
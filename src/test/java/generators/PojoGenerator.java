@@ -1,48 +1,129 @@
 package generators;
 
 import com.google.gson.*;
-import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
-import org.apache.commons.lang3.StringUtils;
 
 
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Pattern;
 
 /**
  * Generates POJO classes from Postman collection JSON payload examples.
  * This generator handles nested objects, array types, and properly manages
  * the generation of complex object hierarchies.
+ * Instances are immutable and keep their class registries per run, so one
+ * generator can be used for several collections concurrently.
  */
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class PojoGenerator {
-    // Default configuration - can be customized via builder
-    private static String outputDir = "src/main/java";
-    private static String packageName = "models";
-    private static boolean useLombok = true;
-    private static boolean useJacksonAnnotations = true;
+    /**
+     * Rules for naming the class that represents a structure found under several fields
+     */
+    public enum ClassNaming {
+        // After the path to its first occurrence, e.g. UsersGetUserResponse200Address
+        PATH,
+        // After its field, e.g. Address; falls back to the path if another structure took the name first
+        FIELD
+    }
 
-    // Tracking generated classes to avoid duplicates
-    private static final Set<String> generatedClasses = new HashSet<>();
-    private static final Map<String, String> jsonHashToClassName = new HashMap<>();
+    // Configuration snapshot taken from the Config this generator was built from
+    private final String outputDir;
+    private final String packageName;
+    private final boolean useLombok;
+    private final boolean useJacksonAnnotations;
+    private final int parallelism;
+    private final int writerThreads;
+    private final OutputSink outputSink;
+    private final String manifestDir;
+    private final OutputSink manifestSink;
+    private final boolean emitSources;
+    private final boolean emitClassFiles;
+    private final PojoClassEmitter classEmitter;
+    private final String reportFile;
+    private final int arraySampleLimit;
+    private final boolean useBoxedTypes;
+    private final boolean usePrimitiveArrays;
+    private final int mapKeyThreshold;
+    private final Set<String> mapFields;
+    private final Set<String> classFields;
+    private final ClassNaming classNaming;
+    private final Map<String, String> classAliases;
 
     // Pattern for valid Java identifiers
     private static final Pattern VALID_JAVA_IDENTIFIER = Pattern.compile("^[a-zA-Z_$][a-zA-Z0-9_$]*$");
 
+    // Keys that are data rather than field names: numbers, dates and UUIDs
+    private static final Pattern DYNAMIC_KEY = Pattern.compile("-?\\d+(\\.\\d+)?"
+            + "|\\d{4}-\\d{2}-\\d{2}([T ][\\d:.]+(Z|[+-]\\d{2}:?\\d{2})?)?"
+            + "|[0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}");
+
+    // Endpoints analyzed by a single fork/join task before it stops splitting
+    private static final int ENDPOINTS_PER_TASK = 8;
+
+    // Number of slowest endpoints and largest bodies listed in the report
+    private static final int REPORT_TOP_COUNT = 10;
+
+    // Names of types the generated classes refer to, which a class named after a field must not hide
+    private static final Set<String> RESERVED_CLASS_NAMES = Set.of("Object", "String", "Boolean", "Integer",
+            "Long", "Double", "List", "Map", "Data", "NoArgsConstructor", "AllArgsConstructor",
+            "JsonIgnoreProperties", "JsonProperty", "JsonInclude");
+
+    private PojoGenerator(Config config) {
+        this.outputDir = config.outputDir;
+        this.packageName = config.packageName;
+        this.useLombok = config.useLombok;
+        this.useJacksonAnnotations = config.useJacksonAnnotations;
+        this.parallelism = config.parallelism;
+        this.writerThreads = config.writerThreads;
+        this.outputSink = config.outputSink;
+        this.manifestDir = config.manifestDir != null
+                ? config.manifestDir
+                : GenerationManifest.defaultDirectory(config.outputDir);
+        this.manifestSink = config.manifestSink == null && config.manifestDir == null && config.outputSink != null
+                ? new MemorySink()
+                : config.manifestSink;
+        this.emitSources = config.emitSources;
+        this.emitClassFiles = config.emitClassFiles;
+        this.classEmitter = new PojoClassEmitter(packageName, useLombok, useJacksonAnnotations);
+        this.reportFile = config.reportFile;
+        this.arraySampleLimit = config.arraySampleLimit;
+        this.useBoxedTypes = config.useBoxedTypes;
+        this.usePrimitiveArrays = config.usePrimitiveArrays;
+        this.mapKeyThreshold = config.mapKeyThreshold;
+        this.mapFields = new TreeSet<>(config.mapFields);
+        this.classFields = new TreeSet<>(config.classFields);
+        this.classNaming = config.classNaming;
+        this.classAliases = new TreeMap<>(config.classAliases);
+    }
+
     /**
      * Configures the generator with custom settings
      */
     public static class Config {
-        private String outputDir = PojoGenerator.outputDir;
-        private String packageName = PojoGenerator.packageName;
-        private boolean useLombok = PojoGenerator.useLombok;
-        private boolean useJacksonAnnotations = PojoGenerator.useJacksonAnnotations;
+        private String outputDir = "src/main/java";
+        private String packageName = "models";
+        private boolean useLombok = true;
+        private boolean useJacksonAnnotations = true;
+        private int parallelism = 1;
+        private int writerThreads = SourceWriter.DEFAULT_THREADS;
+        private OutputSink outputSink;
+        private String manifestDir;
+        private OutputSink manifestSink;
+        private boolean emitSources = true;
+        private boolean emitClassFiles;
+        private String reportFile;
+        private int arraySampleLimit = 1000;
+        private boolean useBoxedTypes;
+        private boolean usePrimitiveArrays;
+        private int mapKeyThreshold = 20;
+        private Set<String> mapFields = Collections.emptySet();
+        private Set<String> classFields = Collections.emptySet();
+        private ClassNaming classNaming = ClassNaming.PATH;
+        private Map<String, String> classAliases = Collections.emptyMap();
 
         public Config setOutputDir(String dir) {
             this.outputDir = dir;
@@ -64,289 +145,1049 @@ public class PojoGenerator {
             return this;
         }
 
-        public void apply() {
-            PojoGenerator.outputDir = this.outputDir;
-            PojoGenerator.packageName = this.packageName;
-            PojoGenerator.useLombok = this.useLombok;
-            PojoGenerator.useJacksonAnnotations = this.useJacksonAnnotations;
+        /**
+         * Sets the number of worker threads; 1 generates sequentially while streaming the collection
+         */
+        public Config setParallelism(int threads) {
+            this.parallelism = Math.max(1, threads);
+            return this;
+        }
+
+        /**
+         * Sets the number of threads writing generated files
+         */
+        public Config setWriterThreads(int threads) {
+            this.writerThreads = Math.max(1, threads);
+            return this;
+        }
+
+        /**
+         * Sets the sink generated files are written to instead of the output directory.
+         * The sink is shared by all runs of the generator and is not closed by it.
+         */
+        public Config setOutputSink(OutputSink sink) {
+            this.outputSink = sink;
+            return this;
+        }
+
+        /**
+         * Sets the directory the manifests that make runs incremental are kept in; by default
+         * {@code .restautomator/<name>} next to the output directory, outside the source root
+         */
+        public Config setManifestDir(String dir) {
+            this.manifestDir = dir;
+            return this;
+        }
+
+        /**
+         * Sets the sink the manifests are kept in instead of a directory. A generator configured with an
+         * output sink but neither of these keeps its manifests in memory, for its own runs only.
+         */
+        public Config setManifestSink(OutputSink sink) {
+            this.manifestSink = sink;
+            return this;
+        }
+
+        /**
+         * Sets whether Java sources are written; they may be turned off when class files are emitted
+         */
+        public Config setEmitSources(boolean emit) {
+            this.emitSources = emit;
+            return this;
+        }
+
+        /**
+         * Sets whether class files are written next to the sources. Class files are emitted directly,
+         * without annotation processing or javac, and have the same API as the sources.
+         */
+        public Config setEmitClassFiles(boolean emit) {
+            this.emitClassFiles = emit;
+            return this;
+        }
+
+        /**
+         * Sets whether numbers and booleans always get wrapper types. By default a field that was
+         * present and not null in every example gets a primitive type, e.g. {@code int} instead of {@code Integer}.
+         */
+        public Config setUseBoxedTypes(boolean use) {
+            this.useBoxedTypes = use;
+            return this;
+        }
+
+        /**
+         * Sets whether arrays whose elements are all numbers and never null become {@code int[]},
+         * {@code long[]} or {@code double[]} instead of {@code List<Double>}. Jackson reads and writes
+         * primitive arrays without further configuration.
+         */
+        public Config setUsePrimitiveArrays(boolean use) {
+            this.usePrimitiveArrays = use;
+            return this;
+        }
+
+        /**
+         * Sets the number of keys from which an object whose values all have the same object or array
+         * structure becomes a {@code Map<String, T>}; 0 turns this off. Objects whose keys are all numbers,
+         * dates or UUIDs become maps regardless of their number of keys.
+         */
+        public Config setMapKeyThreshold(int threshold) {
+            this.mapKeyThreshold = Math.max(0, threshold);
+            return this;
+        }
+
+        /**
+         * Sets object fields that always become a {@code Map<String, T>}, as {@code Class.field} or
+         * {@code *.field} for the field in every class. Class names are those before deduplication
+         * and fields are the JSON keys.
+         */
+        public Config setMapFields(String... fields) {
+            this.mapFields = new LinkedHashSet<>(Arrays.asList(fields));
+            return this;
+        }
+
+        /**
+         * Sets object fields that always become a class, in the format of {@link #setMapFields(String...)}.
+         * A field named with its class wins over {@code *.field}.
+         */
+        public Config setClassFields(String... fields) {
+            this.classFields = new LinkedHashSet<>(Arrays.asList(fields));
+            return this;
+        }
+
+        /**
+         * Sets how the class that represents a structure is named. Identical structures always share
+         * one class; by default it is named after the path to the first of them.
+         */
+        public Config setClassNaming(ClassNaming naming) {
+            this.classNaming = naming;
+            return this;
+        }
+
+        /**
+         * Sets class names for object fields, keyed as in {@link #setMapFields(String...)}. The class of
+         * the field, of the items of its array or of the values of its map gets this name regardless of
+         * the naming rule, so fields with different names, e.g. {@code *.shippingAddress} and
+         * {@code *.billingAddress}, can share one class if their structures are identical. The alias
+         * applies wherever the structure occurs; different aliases for one structure fail the run.
+         * With aliases, all endpoints are read before any class is generated.
+         */
+        public Config setClassAliases(Map<String, String> aliases) {
+            this.classAliases = new LinkedHashMap<>(aliases);
+            return this;
+        }
+
+        /**
+         * Sets the number of elements above which the structure of the objects and arrays in an array
+         * is inferred from a random sample of them instead of all of them; 0 always uses all elements.
+         * Numbers are always widened, and missing and null fields found, over all elements.
+         */
+        public Config setArraySampleLimit(int limit) {
+            this.arraySampleLimit = Math.max(0, limit);
+            return this;
+        }
+
+        /**
+         * Sets a file each run writes a JSON report to, with the time spent per phase,
+         * the number of endpoints, bodies and classes, and the slowest endpoints and largest bodies
+         */
+        public Config setReportFile(String file) {
+            this.reportFile = file;
+            return this;
+        }
+
+        /**
+         * Creates a generator from the current settings. Later changes to this
+         * config do not affect generators that were already built.
+         */
+        public PojoGenerator build() {
+            if (!emitSources && !emitClassFiles) {
+                throw new IllegalStateException("Neither sources nor class files are emitted");
+            }
+            for (String alias : classAliases.values()) {
+                if (!isValidJavaIdentifier(alias) || RESERVED_CLASS_NAMES.contains(alias)) {
+                    throw new IllegalStateException("Invalid class alias: " + alias);
+                }
+            }
+            return new PojoGenerator(this);
         }
     }
 
     /**
-     * Main entry point to generate POJOs from a Postman collection file
+     * Main entry point to generate POJOs from a Postman collection file.
+     * Only endpoints that changed since the previous run into the same output directory are generated again.
      *
      * @param postmanCollectionPath Path to the Postman collection JSON file
      * @throws IOException If file operations fail
      */
-    public static void generatePojos(String postmanCollectionPath) throws IOException {
-        JsonObject collection = JsonParser.parseReader(new FileReader(postmanCollectionPath)).getAsJsonObject();
+    public void generatePojos(String postmanCollectionPath) throws IOException {
+        if (plansUpFront(postmanCollectionPath)) {
+            GenerationReport report = startReport();
+            CollectionModel model;
+            GenerationReport.Timing reading = report.begin(GenerationReport.Phase.READ);
+            try {
+                model = CollectionModel.read(postmanCollectionPath);
+            } finally {
+                report.end(reading);
+            }
+            generatePojos(model, report);
+            return;
+        }
 
-        createOutputDirectory();
-        generatedClasses.clear();
-        jsonHashToClassName.clear();
+        // Stream the collection so that only one endpoint is held in memory at a time
+        try (EndpointStream stream = openStream()) {
+            stream.finish(CollectionReader.readEndpoints(postmanCollectionPath, stream));
+        }
+    }
 
-        // Process the collection recursively to handle nested folders
-        if (collection.has("item")) {
-            processItemsRecursively(collection.getAsJsonArray("item"), "");
-        } else {
+    /**
+     * Generates POJOs from an already parsed collection model
+     *
+     * @param model The parsed Postman collection
+     * @throws IOException If file operations fail
+     */
+    public void generatePojos(CollectionModel model) throws IOException {
+        generatePojos(model, startReport());
+    }
+
+    /**
+     * Generates POJOs from a model and returns the class that represents the request body of each endpoint,
+     * which is the class of an earlier endpoint if their structures are identical
+     *
+     * @return Class names by endpoint, for endpoints whose request body has a class
+     */
+    Map<Endpoint, String> generatePojosResolvingRequests(CollectionModel model) throws IOException {
+        return generatePojos(model, startReport());
+    }
+
+    /**
+     * Returns the directory the generator writes to, unless it was configured with an output sink
+     */
+    String getOutputDir() {
+        return outputSink == null ? outputDir : null;
+    }
+
+    private Map<Endpoint, String> generatePojos(CollectionModel model, GenerationReport report) throws IOException {
+        if (!model.isHasItems()) {
             System.err.println("Invalid Postman collection format: 'item' field not found");
+            return Collections.emptyMap();
         }
+
+        Run run = startRun(report);
+        List<EndpointPlan> plans;
+        try (run.writer) {
+            List<Endpoint> endpoints = model.getEndpoints();
+            if (plansUpFront()) {
+                plans = generateInParallel(endpoints, run);
+            } else {
+                plans = new ArrayList<>(endpoints.size());
+                for (int i = 0; i < endpoints.size(); i++) {
+                    plans.add(processEndpoint(endpoints.get(i), run.nextKey(endpoints.get(i)), i, run));
+                }
+            }
+        }
+        finishRun(run);
+
+        Map<Endpoint, String> requestClasses = new IdentityHashMap<>();
+        for (EndpointPlan plan : plans) {
+            String requestClass = requestClass(plan, run.registry);
+            if (requestClass != null) {
+                requestClasses.put(plan.endpoint, requestClass);
+            }
+        }
+        return requestClasses;
     }
 
     /**
-     * Recursively processes items in the Postman collection, handling nested folders
+     * Checks if all endpoints are planned before any is generated: for parallel generation, and for
+     * class aliases, which may be set on a later occurrence of a structure than the one that names it
      */
-    private static void processItemsRecursively(JsonArray items, String folderPrefix) throws IOException {
-        for (JsonElement item : items) {
-            JsonObject itemObj = item.getAsJsonObject();
+    private boolean plansUpFront() {
+        return parallelism > 1 || !classAliases.isEmpty();
+    }
 
-            // Check if this is a folder (contains subitems)
-            if (itemObj.has("item")) {
-                String folderName = itemObj.has("name") ? itemObj.get("name").getAsString() : "";
-                String newPrefix = StringUtils.isNotEmpty(folderPrefix)
-                        ? folderPrefix + capitalize(folderName)
-                        : capitalize(folderName);
+    /**
+     * Checks if a collection file has to be read into a model rather than streamed. Collections too large
+     * to be mapped are generated sequentially unless class aliases require planning, since a model of them
+     * would hold every body as a string.
+     */
+    boolean plansUpFront(String postmanCollectionPath) throws IOException {
+        return !classAliases.isEmpty() || parallelism > 1 && CollectionReader.isMapped(postmanCollectionPath);
+    }
 
-                processItemsRecursively(itemObj.getAsJsonArray("item"), newPrefix);
-            } else {
-                // This is an endpoint, not a folder
-                String itemName = itemObj.has("name") ? itemObj.get("name").getAsString() : "Unknown";
+    /**
+     * Starts a sequential run that generates the POJOs of endpoints as they are read,
+     * for collections that are not planned up front
+     */
+    EndpointStream openStream() throws IOException {
+        return new EndpointStream(startRun(startReport()));
+    }
+
+    private GenerationReport startReport() {
+        return reportFile != null ? GenerationReport.start("pojos", REPORT_TOP_COUNT) : GenerationReport.disabled();
+    }
+
+    /**
+     * Loads the manifest of the previous run and starts the writer. The stored manifest is removed
+     * until this run completes, so that an interrupted run is followed by a full one.
+     */
+    private Run startRun(GenerationReport report) throws IOException {
+        ShapeFingerprint settings = new ShapeFingerprint.Hasher()
+                .putString(packageName)
+                .putLong(useLombok ? 1 : 0)
+                .putLong(useJacksonAnnotations ? 1 : 0)
+                .putLong((emitSources ? 1 : 0) | (emitClassFiles ? 2 : 0))
+                .putLong(arraySampleLimit)
+                .putLong(useBoxedTypes ? 1 : 0)
+                .putLong(usePrimitiveArrays ? 1 : 0)
+                .putLong(mapKeyThreshold)
+                .putString(String.join("\n", mapFields))
+                .putString(String.join("\n", classFields))
+                .putLong(classNaming.ordinal())
+                .putString(classAliases.toString())
+                .finish();
+        String manifestName = "pojos-" + packageName;
+
+        OutputSink sink = outputSink != null ? outputSink : new DirectorySink(outputDir);
+        OutputSink store = manifestSink != null ? manifestSink : new DirectorySink(manifestDir);
+
+        GenerationManifest previous = GenerationManifest.load(sink, store, manifestName, settings);
+        previous.discard();
+
+        return new Run(sink, previous, GenerationManifest.create(sink, store, manifestName, settings),
+                new SourceWriter(sink, writerThreads, SourceWriter.DEFAULT_QUEUE_CAPACITY), report);
+    }
 
-                if (itemObj.has("request")) {
-                    processRequest(itemObj.getAsJsonObject("request"), folderPrefix + capitalize(itemName));
+    /**
+     * Deletes the classes of endpoints that no longer exist, stores the manifest of this run
+     * and writes the report if one is configured
+     */
+    private void finishRun(Run run) throws IOException {
+        GenerationReport report = run.report;
+        int deleted;
+        GenerationReport.Timing writing = report.begin(GenerationReport.Phase.WRITE);
+        try {
+            deleted = run.current.deleteStaleFiles(run.previous);
+            run.current.save();
+        } finally {
+            report.end(writing);
+        }
+
+        SourceWriter writer = run.writer;
+        System.out.println("Generated " + writer.getFilesWritten() + " classes (" + writer.getBytesWritten()
+                + " bytes) in " + run.sink + ", " + writer.getFilesUnchanged() + " unchanged, "
+                + run.upToDate.get() + " endpoints up to date, " + deleted + " stale classes deleted");
+
+        if (report.isEnabled()) {
+            report.add(GenerationReport.Phase.WRITE, writer.getWriteNanos(), writer.getWriteCpuNanos());
+            report.count("upToDate", run.upToDate.get());
+            report.count("filesWritten", writer.getFilesWritten());
+            report.count("bytesWritten", writer.getBytesWritten());
+            report.count("filesUnchanged", writer.getFilesUnchanged());
+            report.count("staleDeleted", deleted);
+            report.write(reportFile, run.sink);
+        }
+    }
+
+    /**
+     * Processes a single endpoint sequentially: plan, register and write its classes.
+     * Endpoints must be processed in collection order.
+     */
+    private EndpointPlan processEndpoint(Endpoint endpoint, String key, int endpointIndex, Run run) throws IOException {
+        EndpointPlan plan;
+        GenerationReport.Timing inferring = run.report.begin(GenerationReport.Phase.INFER);
+        try {
+            plan = planEndpoint(endpoint, key, endpointIndex, run);
+            claimShapes(plan, run.registry);
+            reserveNames(plan, run.registry);
+
+            if (!plan.analyzed && !isUpToDate(plan, run)) {
+                reanalyze(plan, run);
+            }
+        } finally {
+            run.report.end(inferring);
+        }
+
+        printMessages(plan);
+        emitClasses(plan, run);
+        return plan;
+    }
+
+    /**
+     * Generates POJOs on a fork/join pool in passes over the endpoints. Workers first plan
+     * endpoints and claim their shapes, then the names of the classes that own their shapes are
+     * reserved, then workers analyze unchanged endpoints whose classes are affected by other changes,
+     * and finally render the classes and queue them for writing. The passes run concurrently on the
+     * lock-free {@link ClassRegistry}, except for the reservation of names, which is quick and depends
+     * on the names of earlier classes; because all claims are decided by collection order, the output
+     * is identical to a sequential run.
+     */
+    private List<EndpointPlan> generateInParallel(List<Endpoint> endpoints, Run run) throws IOException {
+        String[] keys = new String[endpoints.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = run.nextKey(endpoints.get(i));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            EndpointPlan[] plans = new EndpointPlan[endpoints.size()];
+            GenerationReport report = run.report;
+            invoke(pool, new RangeTask(0, plans.length, ENDPOINTS_PER_TASK, i -> {
+                GenerationReport.Timing inferring = report.begin(GenerationReport.Phase.INFER);
+                try {
+                    plans[i] = planEndpoint(endpoints.get(i), keys[i], i, run);
+                    claimShapes(plans[i], run.registry);
+                } finally {
+                    report.end(inferring);
                 }
+            }));
 
-                if (itemObj.has("response")) {
-                    processResponses(itemObj.getAsJsonArray("response"), folderPrefix + capitalize(itemName));
+            GenerationReport.Timing reserving = report.begin(GenerationReport.Phase.INFER);
+            try {
+                for (EndpointPlan plan : plans) {
+                    reserveNames(plan, run.registry);
+                }
+            } finally {
+                report.end(reserving);
+            }
+            invoke(pool, new RangeTask(0, plans.length, ENDPOINTS_PER_TASK, i -> {
+                GenerationReport.Timing inferring = report.begin(GenerationReport.Phase.INFER);
+                try {
+                    if (!plans[i].analyzed && !isUpToDate(plans[i], run)) {
+                        reanalyze(plans[i], run);
+                    }
+                } finally {
+                    report.end(inferring);
                 }
+            }));
+
+            for (EndpointPlan plan : plans) {
+                printMessages(plan);
             }
+
+            invoke(pool, new RangeTask(0, plans.length, 1, i -> emitClasses(plans[i], run)));
+            return Arrays.asList(plans);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void invoke(ForkJoinPool pool, RangeTask task) throws IOException {
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
     /**
-     * Processes a request object to extract and generate POJOs for request bodies
+     * Plans the classes of an endpoint. If the endpoint is unchanged since the previous run,
+     * its classes are taken from the manifest without parsing any body.
      */
-    private static void processRequest(JsonObject request, String baseName) throws IOException {
-        if (!request.has("body") || !request.getAsJsonObject("body").has("raw")) {
-            return;
+    private EndpointPlan planEndpoint(Endpoint endpoint, String key, int endpointIndex, Run run) {
+        ShapeFingerprint fingerprint = endpoint.fingerprint();
+        GenerationManifest.Entry previous = run.previous.get(key);
+        if (previous != null && !previous.hasFingerprint(fingerprint)) {
+            previous = null;
         }
 
-        String rawBody = request.getAsJsonObject("body").get("raw").getAsString();
-        if (!isValidJson(rawBody)) {
-            return;
+        EndpointPlan plan = new EndpointPlan(endpoint, baseName(endpoint), key, endpointIndex, fingerprint, previous);
+        if (previous != null) {
+            for (GenerationManifest.ClassRecord record : previous.getClasses()) {
+                ClassPlan classPlan = new ClassPlan(record.getName());
+                classPlan.preferredName = record.getPreferredName();
+                classPlan.alias = record.getAlias();
+                classPlan.fingerprint = record.getShape();
+                plan.classes.add(classPlan);
+            }
+        } else {
+            analyzeEndpoint(plan, run.report);
         }
+        return plan;
+    }
 
-        try {
-            JsonElement bodyJson = JsonParser.parseString(rawBody);
-            String className = baseName + "Request";
+    /**
+     * Analyzes an unchanged endpoint whose classes have to be written again. The analysis
+     * yields the classes recorded in the manifest, so the claims made for them stay the same.
+     */
+    private void reanalyze(EndpointPlan plan, Run run) {
+        plan.classes.clear();
+        analyzeEndpoint(plan, run.report);
+        claimShapes(plan, run.registry);
+        reserveNames(plan, run.registry);
+    }
 
-            if (bodyJson.isJsonObject()) {
-                generatePojoClassesRecursively(className, bodyJson.getAsJsonObject(), new HashSet<>());
-            } else {
-                System.err.println("Request body for " + baseName + " is not a JSON object");
+    /**
+     * Checks if the classes written for an unchanged endpoint in the previous run are still valid:
+     * the endpoint owns the same classes, their files exist and the classes they refer to kept their names
+     */
+    private boolean isUpToDate(EndpointPlan plan, Run run) {
+        List<String> files = new ArrayList<>();
+        for (ClassPlan classPlan : plan.classes) {
+            if (owns(classPlan, run.registry)) {
+                files.addAll(outputFiles(run.registry.classFor(classPlan.fingerprint)));
             }
-        } catch (Exception e) {
-            System.err.println("Error processing request body for " + baseName + ": " + e.getMessage());
         }
+        if (!files.equals(plan.previous.getFiles())) {
+            return false;
+        }
+        for (String file : files) {
+            if (!run.current.exists(file)) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, String> reference : plan.previous.getReferences().entrySet()) {
+            if (!reference.getValue().equals(run.registry.classFor(ShapeFingerprint.parse(reference.getKey())))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean owns(ClassPlan classPlan, ClassRegistry registry) {
+        return registry.ownsShape(classPlan.fingerprint, classPlan.ordinal)
+                && registry.ownsName(registry.classFor(classPlan.fingerprint), classPlan.ordinal);
     }
 
     /**
-     * Processes response objects to extract and generate POJOs for response bodies
+     * Analyzes the request and response bodies of an endpoint into class plans.
+     * This step touches no shared state and may run concurrently for different endpoints.
      */
-    private static void processResponses(JsonArray responses, String baseName) throws IOException {
-        for (int i = 0; i < responses.size(); i++) {
-            JsonObject response = responses.get(i).getAsJsonObject();
-            if (!response.has("body")) {
-                continue;
+    private void analyzeEndpoint(EndpointPlan plan, GenerationReport report) {
+        long start = report.nanoTime();
+        Endpoint endpoint = plan.endpoint;
+        plan.analyzed = true;
+
+        processRequest(endpoint, plan.baseName, plan, report);
+        processResponses(endpoint.getExamples(), plan.baseName, plan, report);
+        plan.nanos += report.nanoTime() - start;
+    }
+
+    /**
+     * Returns the prefix of the names of the body classes of an endpoint: its folder path and name,
+     * without characters that cannot appear in a class name
+     */
+    private static String baseName(Endpoint endpoint) {
+        StringBuilder baseName = new StringBuilder();
+        for (String folderName : endpoint.getFolderPath()) {
+            baseName.append(sanitizeForClassName(folderName));
+        }
+        return baseName.append(sanitizeForClassName(endpoint.getName())).toString();
+    }
+
+    /**
+     * Returns the class that represents the request body of a processed endpoint, or null if the body has none
+     */
+    private static String requestClass(EndpointPlan plan, ClassRegistry registry) {
+        String className = plan.baseName + "Request";
+        for (ClassPlan classPlan : plan.classes) {
+            if (classPlan.className.equals(className)) {
+                return registry.classFor(classPlan.fingerprint);
             }
+        }
+        return null;
+    }
+
+    /**
+     * Parses a body, counting it and recording its size in the report
+     */
+    private static BodyAnalysis analyze(Endpoint.Body body, String item, GenerationReport report) {
+        BodyAnalysis analysis;
+        GenerationReport.Timing parsing = report.begin(GenerationReport.Phase.PARSE);
+        try {
+            analysis = body.analysis();
+        } finally {
+            report.end(parsing);
+        }
+        if (analysis.isValid() && report.isEnabled()) {
+            report.count("bodies", 1);
+            report.bodySize(item, body.getRaw().length());
+        }
+        return analysis;
+    }
 
-            String rawBody = response.get("body").getAsString();
-            if (!isValidJson(rawBody)) {
+    /**
+     * Processes the request body and the requests saved with the response examples
+     * to extract one class plan for the merged request POJO
+     */
+    private void processRequest(Endpoint endpoint, String baseName, EndpointPlan plan, GenerationReport report) {
+        ValueShape shape = null;
+        Set<ShapeFingerprint> merged = new HashSet<>();
+
+        if (endpoint.getRequestBody() != null) {
+            BodyAnalysis analysis = analyze(endpoint.getRequestBody(), plan.key + " request", report);
+            if (analysis.isValid()) {
+                if (analysis.getTree().isJsonObject()) {
+                    shape = merge(shape, analysis, merged);
+                } else {
+                    plan.messages.add("Request body for " + baseName + " is not a JSON object");
+                }
+            }
+        }
+
+        for (Endpoint.Example example : endpoint.getExamples()) {
+            if (example.getRequestBody() == null) {
                 continue;
             }
+            BodyAnalysis analysis = analyze(example.getRequestBody(),
+                    plan.key + " example " + example.getIndex() + " request", report);
+            if (analysis.isValid() && analysis.getTree().isJsonObject()) {
+                shape = merge(shape, analysis, merged);
+            }
+        }
 
-            try {
-                JsonElement bodyJson = JsonParser.parseString(rawBody);
-                String statusCode = response.has("code") ? response.get("code").getAsString() : String.valueOf(i);
-                String className = baseName + "Response" + sanitizeForClassName(statusCode);
+        if (shape == null) {
+            return;
+        }
+        try {
+            plan.addRoot(planClassesRecursively(baseName + "Request", shape));
+        } catch (Exception e) {
+            plan.messages.add("Error processing request body for " + baseName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Processes response examples to extract class plans for response POJOs. The examples of
+     * one status family are merged into one class, named after their status code if they share
+     * one and after the family otherwise, e.g. {@code Response200} or {@code Response2xx}.
+     */
+    private void processResponses(List<Endpoint.Example> examples, String baseName, EndpointPlan plan,
+                                  GenerationReport report) {
+        Map<String, List<Endpoint.Example>> families = new LinkedHashMap<>();
+        for (Endpoint.Example example : examples) {
+            if (example.getBody() != null) {
+                families.computeIfAbsent(statusFamily(example.getCode()), k -> new ArrayList<>()).add(example);
+            }
+        }
+
+        for (Map.Entry<String, List<Endpoint.Example>> family : families.entrySet()) {
+            String className = baseName + "Response" + sanitizeForClassName(familyName(family.getKey(), family.getValue()));
+            ValueShape shape = null;
+            Set<ShapeFingerprint> merged = new HashSet<>();
+
+            for (Endpoint.Example example : family.getValue()) {
+                String statusCode = statusCode(example);
+                BodyAnalysis analysis = analyze(example.getBody(), plan.key + " response " + statusCode, report);
+                if (!analysis.isValid()) {
+                    continue;
+                }
 
-                if (bodyJson.isJsonObject()) {
-                    generatePojoClassesRecursively(className, bodyJson.getAsJsonObject(), new HashSet<>());
+                if (analysis.getTree().isJsonObject()) {
+                    shape = merge(shape, analysis, merged);
                 } else {
-                    System.err.println("Response body for " + className + " is not a JSON object");
+                    plan.messages.add("Response body for " + className + " is not a JSON object");
                 }
+            }
+
+            if (shape == null) {
+                continue;
+            }
+            try {
+                plan.addRoot(planClassesRecursively(className, shape));
             } catch (Exception e) {
-                System.err.println("Error processing response body for " + baseName + ": " + e.getMessage());
+                plan.messages.add("Error processing response body for " + baseName + ": " + e.getMessage());
             }
         }
     }
 
     /**
-     * Recursively generates POJO classes for a JSON object and all its nested objects
+     * Merges a body into the shape of the bodies merged so far, or starts one. A body with the
+     * structure of one merged before would not change the shape and is skipped.
+     *
+     * @param merged Structural fingerprints of the bodies merged so far, updated by this call
      */
-    private static void generatePojoClassesRecursively(String className, JsonObject jsonObject,
-                                                       Set<String> generatedInCurrentBranch) throws IOException {
-        // Check for class name collisions based on content hash
-        String jsonHash = jsonObject.toString().hashCode() + "";
-
-        if (jsonHashToClassName.containsKey(jsonHash)) {
-            // We've already generated a class for this exact structure, just use that name
-            String existingClassName = jsonHashToClassName.get(jsonHash);
-            if (!existingClassName.equals(className)) {
-                System.out.println("Using existing class " + existingClassName + " for " + className
-                        + " (identical structure)");
-                return;
-            }
+    private ValueShape merge(ValueShape shape, BodyAnalysis body, Set<ShapeFingerprint> merged) {
+        if (!merged.add(body.getShape())) {
+            return shape;
+        }
+        if (shape == null) {
+            return ValueShape.of(body.getTree(), arraySampleLimit);
         }
+        shape.add(body.getTree());
+        return shape;
+    }
 
-        jsonHashToClassName.put(jsonHash, className);
+    private static String statusCode(Endpoint.Example example) {
+        return example.getCode() != null ? example.getCode() : String.valueOf(example.getIndex());
+    }
 
-        if (generatedClasses.contains(className)) {
-            return; // Already generated this class
+    /**
+     * Returns the status family of a code, e.g. {@code 2xx} for 201. Codes that are not
+     * HTTP status codes form their own family; examples without a code share one.
+     */
+    private static String statusFamily(String code) {
+        if (code == null) {
+            return "";
         }
+        String trimmed = code.trim();
+        return trimmed.matches("[1-5]\\d\\d") ? trimmed.charAt(0) + "xx" : trimmed;
+    }
 
-        if (generatedInCurrentBranch.contains(className)) {
-            System.err.println("Circular reference detected for class " + className + ", skipping");
-            return;
+    /**
+     * Names the class of a status family after the status code of its examples if they share one
+     */
+    private static String familyName(String family, List<Endpoint.Example> examples) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (Endpoint.Example example : examples) {
+            codes.add(statusCode(example));
         }
+        return codes.size() == 1 || family.isEmpty() ? codes.iterator().next() : family;
+    }
 
-        generatedInCurrentBranch.add(className);
+    /**
+     * Recursively builds class plans for an object shape and all its nested objects.
+     * The structural fingerprint of each object is computed bottom-up in the same traversal.
+     */
+    private ClassPlan planClassesRecursively(String className, ValueShape objectShape) {
+        ClassPlan plan = new ClassPlan(className);
 
-        Map<String, String> fields = new LinkedHashMap<>();
-        Map<String, JsonObject> nestedObjects = new LinkedHashMap<>();
-        Map<String, JsonObject> nestedArrayObjects = new LinkedHashMap<>();
+        Map<String, ValueShape> nestedObjects = new LinkedHashMap<>();
+        Map<String, ValueShape> nestedArrayObjects = new LinkedHashMap<>();
+        Map<String, String> preferredNames = new HashMap<>();
+        Map<String, String> aliases = new HashMap<>();
 
-        // First pass - analyze all fields and identify nested structures
-        for (Map.Entry<String, JsonElement> entry : jsonObject.entrySet()) {
+        // Analyze all fields and identify nested structures
+        for (Map.Entry<String, ValueShape> entry : objectShape.getFields().entrySet()) {
             String fieldName = sanitizeFieldName(entry.getKey());
-            JsonElement element = entry.getValue();
-
-            if (element.isJsonObject()) {
+            ValueShape value = entry.getValue();
+
+            if (value.isObject() && isMap(className, entry.getKey(), value)) {
+                // Keys are data rather than field names, so a map of the union of all values
+                ValueShape values = value.fieldValues();
+                if (values.isObject()) {
+                    String valueClassName = className + capitalize(fieldName) + "Value";
+                    plan.fields.put(fieldName, FieldPlan.map(valueClassName, false));
+                    nestedObjects.put(valueClassName, values);
+                    preferredNames.put(valueClassName, preferredName(entry.getKey(), valueClassName, "Value"));
+                    aliases.put(valueClassName, aliasFor(className, entry.getKey()));
+                } else if (values.isArray() && !values.getElements().isEmpty()) {
+                    String componentType = determineArrayComponentType(values.getElements(), className, fieldName,
+                            nestedArrayObjects);
+                    preferredNames.put(componentType, preferredName(entry.getKey(), componentType, "Item"));
+                    aliases.put(componentType, aliasFor(className, entry.getKey()));
+                    plan.fields.put(fieldName, nestedArrayObjects.containsKey(componentType)
+                            ? FieldPlan.map(componentType, true)
+                            : FieldPlan.simple("Map<String, List<" + componentType + ">>"));
+                } else {
+                    plan.fields.put(fieldName, FieldPlan.simple("Map<String, " + values.scalarType() + ">"));
+                }
+            } else if (value.isObject()) {
                 // This is a nested object - we'll need to generate a class for it
                 String nestedClassName = className + capitalize(fieldName);
-                fields.put(fieldName, nestedClassName);
-                nestedObjects.put(nestedClassName, element.getAsJsonObject());
-            } else if (element.isJsonArray() && !element.getAsJsonArray().isEmpty()) {
+                plan.fields.put(fieldName, FieldPlan.nested(nestedClassName, false));
+                nestedObjects.put(nestedClassName, value);
+                preferredNames.put(nestedClassName, preferredName(entry.getKey(), nestedClassName, ""));
+                aliases.put(nestedClassName, aliasFor(className, entry.getKey()));
+            } else if (usePrimitiveArrays && value.isArray() && value.getElements().isNumber()
+                    && !value.getElements().isNullSeen()) {
+                // Numbers only, so a primitive array of the widest number type
+                plan.fields.put(fieldName, FieldPlan.simple(primitiveType(value.getElements().scalarType(), fieldName) + "[]"));
+            } else if (value.isArray() && !value.getElements().isEmpty()) {
                 // For arrays, we need to determine the component type
-                JsonArray array = element.getAsJsonArray();
-                String componentType = determineArrayComponentType(array, className, fieldName,
+                String componentType = determineArrayComponentType(value.getElements(), className, fieldName,
                         nestedArrayObjects);
-                fields.put(fieldName, "List<" + componentType + ">");
+                preferredNames.put(componentType, preferredName(entry.getKey(), componentType, "Item"));
+                aliases.put(componentType, aliasFor(className, entry.getKey()));
+                plan.fields.put(fieldName, nestedArrayObjects.containsKey(componentType)
+                        ? FieldPlan.nested(componentType, true)
+                        : FieldPlan.simple("List<" + componentType + ">"));
             } else {
-                // Simple type
-                String fieldType = determineFieldType(element);
-                fields.put(fieldName, fieldType);
+                // Simple type, primitive if the field was never null or missing
+                String type = value.scalarType();
+                if (!useBoxedTypes && !value.isNullSeen() && !objectShape.isOptional(entry.getKey())) {
+                    type = primitiveType(type, fieldName);
+                }
+                plan.fields.put(fieldName, FieldPlan.simple(type));
             }
+
+            // Fields missing from some of the merged objects are optional
+            plan.fields.get(fieldName).optional = objectShape.isOptional(entry.getKey());
         }
 
-        // Generate the class file
-        generatePojoClass(className, fields);
-        generatedClasses.add(className);
-        generatedInCurrentBranch.remove(className);
+        // Nested objects first, then array components that are objects
+        Map<String, ClassPlan> nestedPlans = new HashMap<>();
+        for (Map.Entry<String, ValueShape> entry : nestedObjects.entrySet()) {
+            ClassPlan child = planClassesRecursively(entry.getKey(), entry.getValue());
+            child.preferredName = preferredNames.get(child.className);
+            child.alias = aliases.get(child.className);
+            plan.children.add(child);
+            nestedPlans.put(child.className, child);
+        }
+        for (Map.Entry<String, ValueShape> entry : nestedArrayObjects.entrySet()) {
+            ClassPlan child = planClassesRecursively(entry.getKey(), entry.getValue());
+            child.preferredName = preferredNames.get(child.className);
+            child.alias = aliases.get(child.className);
+            plan.children.add(child);
+            nestedPlans.put(child.className, child);
+        }
 
-        // Second pass - generate classes for all nested objects
-        for (Map.Entry<String, JsonObject> entry : nestedObjects.entrySet()) {
-            generatePojoClassesRecursively(entry.getKey(), entry.getValue(), generatedInCurrentBranch);
+        // Fingerprint from field names and types only; nested classes contribute their fingerprints
+        List<ShapeFingerprint> fieldFingerprints = new ArrayList<>();
+        for (Map.Entry<String, FieldPlan> field : plan.fields.entrySet()) {
+            FieldPlan fieldPlan = field.getValue();
+            ShapeFingerprint.Hasher hasher = new ShapeFingerprint.Hasher().putString(field.getKey());
+
+            if (fieldPlan.nestedClassName != null) {
+                fieldPlan.nested = nestedPlans.get(fieldPlan.nestedClassName);
+                hasher.putString(fieldPlan.list ? "List" : "").putFingerprint(fieldPlan.nested.fingerprint);
+                if (fieldPlan.map) {
+                    hasher.putString("Map");
+                }
+            } else {
+                hasher.putString(fieldPlan.type);
+            }
+            if (fieldPlan.optional) {
+                hasher.putString("optional");
+            }
+            fieldFingerprints.add(hasher.finish());
         }
+        plan.fingerprint = ShapeFingerprint.ofFields(fieldFingerprints);
+
+        return plan;
+    }
 
-        // Third pass - generate classes for array components that are objects
-        for (Map.Entry<String, JsonObject> entry : nestedArrayObjects.entrySet()) {
-            generatePojoClassesRecursively(entry.getKey(), entry.getValue(), generatedInCurrentBranch);
+    /**
+     * Returns the class alias configured for an object field, or null if it has none
+     */
+    private String aliasFor(String className, String key) {
+        String alias = classAliases.get(className + "." + key);
+        return alias != null ? alias : classAliases.get("*." + key);
+    }
+
+    /**
+     * Returns the name a nested class prefers under the naming rule: with field naming the name of its
+     * field with a suffix for array items and map values. Otherwise, and for names of types the class
+     * would hide, the class keeps its path name.
+     */
+    private String preferredName(String key, String pathName, String suffix) {
+        if (classNaming == ClassNaming.FIELD) {
+            String name = capitalize(sanitizeFieldName(key)) + suffix;
+            if (isValidJavaIdentifier(name) && !RESERVED_CLASS_NAMES.contains(name)) {
+                return name;
+            }
         }
+        return pathName;
     }
 
     /**
-     * Determines the component type of an array
+     * Checks if an object field holds a map rather than a nested class: if it is configured so,
+     * if all its keys are numbers, dates or UUIDs, or if it has many keys whose values all have
+     * the same object or array structure
      */
-    private static String determineArrayComponentType(JsonArray array, String parentClassName,
-                                                      String fieldName, Map<String, JsonObject> nestedArrayObjects) {
-        // Look at the first few elements to determine the common type
-        Set<String> types = new HashSet<>();
-        JsonObject sampleObject = null;
+    private boolean isMap(String className, String key, ValueShape value) {
+        for (String field : new String[]{className + "." + key, "*." + key}) {
+            if (classFields.contains(field)) {
+                return false;
+            }
+            if (mapFields.contains(field)) {
+                return true;
+            }
+        }
 
-        // Check up to 5 elements to determine type consistency
-        for (int i = 0; i < Math.min(array.size(), 5); i++) {
-            JsonElement element = array.get(i);
-            if (element.isJsonNull()) continue;
+        Map<String, ValueShape> fields = value.getFields();
+        if (fields.isEmpty()) {
+            return false;
+        }
+        boolean dynamicKeys = true;
+        for (String fieldKey : fields.keySet()) {
+            if (!DYNAMIC_KEY.matcher(fieldKey).matches()) {
+                dynamicKeys = false;
+                break;
+            }
+        }
+        if (dynamicKeys) {
+            return true;
+        }
 
-            if (element.isJsonPrimitive()) {
-                JsonPrimitive primitive = element.getAsJsonPrimitive();
-                if (primitive.isString()) types.add("String");
-                else if (primitive.isNumber()) types.add("Double");
-                else if (primitive.isBoolean()) types.add("Boolean");
-            } else if (element.isJsonObject()) {
-                types.add("Object");
-                if (sampleObject == null) {
-                    sampleObject = element.getAsJsonObject();
-                }
-            } else if (element.isJsonArray()) {
-                types.add("List");
+        if (mapKeyThreshold <= 0 || fields.size() < mapKeyThreshold) {
+            return false;
+        }
+        ValueShape first = fields.values().iterator().next();
+        if (!first.isObject() && !first.isArray()) {
+            return false;
+        }
+        for (ValueShape field : fields.values()) {
+            if (!field.hasSameStructure(first)) {
+                return false;
             }
         }
+        return true;
+    }
 
-        // If we have a consistent object type, create a class for it
-        if (types.size() == 1 && types.contains("Object") && sampleObject != null) {
-            String componentClassName = parentClassName + capitalize(fieldName) + "Item";
-            nestedArrayObjects.put(componentClassName, sampleObject);
-            return componentClassName;
+    private static void printMessages(EndpointPlan plan) {
+        for (String message : plan.messages) {
+            System.err.println(message);
         }
+    }
 
-        // Default or mixed types
-        if (types.size() != 1) {
-            return "Object";
+    /**
+     * Claims the shapes of all planned classes of an endpoint, in the order they were planned.
+     * The ordinal of a class is its position in collection order.
+     */
+    private static void claimShapes(EndpointPlan plan, ClassRegistry registry) {
+        long ordinal = (long) plan.index << 32;
+        for (ClassPlan classPlan : plan.classes) {
+            classPlan.ordinal = ordinal++;
+            registry.claimShape(classPlan.fingerprint, classPlan.ordinal, classPlan.className, classPlan.preferredName,
+                    classPlan.alias);
         }
+    }
 
-        // Single consistent primitive type
-        return types.iterator().next();
+    /**
+     * Reserves the names of the planned classes that represent their shape. All shapes of this and
+     * earlier endpoints, and all shapes with aliases, must have been claimed already, and the names
+     * of earlier endpoints reserved.
+     */
+    private static void reserveNames(EndpointPlan plan, ClassRegistry registry) {
+        for (ClassPlan classPlan : plan.classes) {
+            registry.reserveName(classPlan.fingerprint, classPlan.ordinal);
+        }
     }
 
     /**
-     * Determines the Java type for a JSON element
+     * Writes the planned classes that own both their shape and their name, and records them in the
+     * manifest. A structure that was already claimed under another name is represented by that class
+     * instead. Endpoints that are up to date keep their entry of the previous run.
      */
-    private static String determineFieldType(JsonElement element) {
-        if (element == null || element.isJsonNull()) return "Object";
+    private void emitClasses(EndpointPlan plan, Run run) throws IOException {
+        GenerationReport report = run.report;
+        report.count("endpoints", 1);
+        if (!plan.analyzed) {
+            run.upToDate.incrementAndGet();
+            run.current.put(plan.key, plan.previous);
+            return;
+        }
 
-        if (element.isJsonPrimitive()) {
-            JsonPrimitive primitive = element.getAsJsonPrimitive();
-            if (primitive.isString()) return "String";
-            if (primitive.isBoolean()) return "Boolean";
+        long start = report.nanoTime();
 
-            if (primitive.isNumber()) {
-                // Try to infer if it's an integer or floating point
-                String numStr = primitive.getAsString();
-                if (numStr.contains(".")) {
-                    return "Double";
-                }
+        ClassRegistry registry = run.registry;
+        List<String> files = new ArrayList<>();
+        List<GenerationManifest.ClassRecord> classes = new ArrayList<>();
+        Map<String, String> references = new LinkedHashMap<>();
+
+        for (ClassPlan classPlan : plan.classes) {
+            classes.add(new GenerationManifest.ClassRecord(classPlan.className, classPlan.preferredName,
+                    classPlan.alias, classPlan.fingerprint));
+
+            if (!registry.ownsShape(classPlan.fingerprint, classPlan.ordinal)) {
+                report.count("dedupHits", 1);
+                continue;
+            }
 
-                // Check if it fits in an Integer or needs along
+            if (owns(classPlan, registry)) {
+                GenerationReport.Timing rendering = report.begin(GenerationReport.Phase.RENDER);
                 try {
-                    long value = primitive.getAsLong();
-                    if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
-                        return "Long";
+                    generatePojoClass(classPlan, registry, run.writer);
+                } finally {
+                    report.end(rendering);
+                }
+                report.count("classes", 1);
+                files.addAll(outputFiles(registry.classFor(classPlan.fingerprint)));
+
+                for (FieldPlan field : classPlan.fields.values()) {
+                    if (field.nested != null) {
+                        references.put(field.nested.fingerprint.toString(), registry.classFor(field.nested.fingerprint));
                     }
-                    return "Integer";
-                } catch (NumberFormatException e) {
-                    return "Double";
                 }
             }
         }
 
-        if (element.isJsonArray()) return "List<Object>";
+        run.current.put(plan.key, new GenerationManifest.Entry(plan.fingerprint, files, classes, references));
+        report.itemTime(plan.key, plan.nanos + report.nanoTime() - start);
+    }
+
+    /**
+     * Returns the paths of the files written for a class
+     */
+    private List<String> outputFiles(String className) {
+        List<String> files = new ArrayList<>(2);
+        if (emitSources) {
+            files.add(SourceWriter.sourcePath(packageName, className));
+        }
+        if (emitClassFiles) {
+            files.add(SourceWriter.classPath(packageName, className));
+        }
+        return files;
+    }
+
+    /**
+     * Determines the component type of an array from the union of all its elements
+     */
+    private static String determineArrayComponentType(ValueShape elements, String parentClassName,
+                                                      String fieldName, Map<String, ValueShape> nestedArrayObjects) {
+        // If all elements are objects, create a class for the union of their fields
+        if (elements.isObject()) {
+            String componentClassName = parentClassName + capitalize(fieldName) + "Item";
+            nestedArrayObjects.put(componentClassName, elements);
+            return componentClassName;
+        }
+
+        if (elements.isArray()) {
+            return "List";
+        }
+        if (elements.isNumber()) {
+            return "Double";
+        }
+
+        // A single primitive type, or Object for mixed types
+        return elements.scalarType();
+    }
 
-        return "Object";
+    /**
+     * Returns the primitive type for a wrapper type, or the type itself if it has none.
+     * With Lombok, booleans named like {@code isActive} stay wrapped: Lombok would name their
+     * getter {@code isActive()}, which Jackson maps to the property {@code active}.
+     */
+    private String primitiveType(String type, String fieldName) {
+        switch (type) {
+            case "Integer":
+                return "int";
+            case "Long":
+                return "long";
+            case "Double":
+                return "double";
+            case "Boolean":
+                return useLombok && PojoClassEmitter.hasIsPrefix(fieldName) ? type : "boolean";
+            default:
+                return type;
+        }
     }
 
     /**
-     * Generates a Java POJO class file
+     * Generates a Java POJO class and hands its source and/or class file to the writer
      */
-    private static void generatePojoClass(String className, Map<String, String> fields) throws IOException {
+    private void generatePojoClass(ClassPlan plan, ClassRegistry registry, SourceWriter writer) throws IOException {
+        String className = registry.classFor(plan.fingerprint);
+        // Field types, with nested classes replaced by the classes that represent their shapes
+        Map<String, String> fields = new LinkedHashMap<>();
+        boolean hasOptionalFields = false;
+        for (Map.Entry<String, FieldPlan> field : plan.fields.entrySet()) {
+            fields.put(field.getKey(), field.getValue().resolvedType(registry));
+            hasOptionalFields |= field.getValue().optional;
+        }
+
+        if (emitClassFiles) {
+            List<PojoClassEmitter.Field> classFields = new ArrayList<>();
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                String fieldName = field.getKey();
+                boolean optional = plan.fields.get(fieldName).optional;
+                classFields.add(isValidJavaIdentifier(fieldName)
+                        ? new PojoClassEmitter.Field(fieldName, null, field.getValue(), optional)
+                        : new PojoClassEmitter.Field(makeValidJavaIdentifier(fieldName), fieldName, field.getValue(),
+                        optional));
+            }
+            writer.writeClass(packageName, className, classEmitter.emit(className, classFields));
+        }
+        if (!emitSources) {
+            return;
+        }
+
         StringBuilder classBuilder = new StringBuilder();
 
         // Package declaration
         classBuilder.append("package ").append(packageName).append(";\n\n");
 
-        // Imports
-        Set<String> imports = new HashSet<>();
+        // Imports, sorted so that the output does not depend on hash order
+        Set<String> imports = new TreeSet<>();
         imports.add("java.util.List");
         imports.add("java.util.Map");
 
@@ -359,6 +1200,9 @@ public class PojoGenerator {
         if (useJacksonAnnotations) {
             imports.add("com.fasterxml.jackson.annotation.JsonIgnoreProperties");
             imports.add("com.fasterxml.jackson.annotation.JsonProperty");
+            if (hasOptionalFields) {
+                imports.add("com.fasterxml.jackson.annotation.JsonInclude");
+            }
         }
 
         for (String importClass : imports) {
@@ -385,6 +1229,10 @@ public class PojoGenerator {
             String fieldName = field.getKey();
             String fieldType = field.getValue();
 
+            // Fields missing from some examples are left out of serialized JSON while unset
+            if (useJacksonAnnotations && plan.fields.get(fieldName).optional) {
+                classBuilder.append("    @JsonInclude(JsonInclude.Include.NON_NULL)\n");
+            }
             if (useJacksonAnnotations && !isValidJavaIdentifier(fieldName)) {
                 classBuilder.append("    @JsonProperty(\"").append(fieldName).append("\")\n");
             }
@@ -428,45 +1276,7 @@ public class PojoGenerator {
 
         classBuilder.append("}\n");
 
-        // Write to file
-        String fullPackagePath = outputDir + "/" + packageName.replace('.', '/');
-        Path path = Paths.get(fullPackagePath);
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-        }
-
-        try (FileWriter writer = new FileWriter(fullPackagePath + "/" + className + ".java")) {
-            writer.write(classBuilder.toString());
-        }
-
-        System.out.println("Generated class: " + className);
-    }
-
-    /**
-     * Checks if a string is a valid JSON
-     */
-    private static boolean isValidJson(String json) {
-        if (json == null || json.trim().isEmpty()) {
-            return false;
-        }
-
-        try {
-            JsonParser.parseString(json);
-            return true;
-        } catch (Exception e) {
-            return false;
-        }
-    }
-
-    /**
-     * Creates the output directory structure
-     */
-    static void createOutputDirectory() throws IOException {
-        String fullPackagePath = outputDir + "/" + packageName.replace('.', '/');
-        Path path = Paths.get(fullPackagePath);
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-        }
+        writer.write(packageName, className, classBuilder.toString());
     }
 
     /**
@@ -557,4 +1367,250 @@ public class PojoGenerator {
 
         return result.toString();
     }
-}
\ No newline at end of file
+
+    /**
+     * State of one generation run: the class registry, the sink and its writer, and the manifests
+     * of the previous and the current run
+     */
+    private static final class Run {
+        private final ClassRegistry registry = new ClassRegistry();
+        private final OutputSink sink;
+        private final GenerationManifest previous;
+        private final GenerationManifest current;
+        private final SourceWriter writer;
+        private final GenerationReport report;
+        private final AtomicInteger upToDate = new AtomicInteger();
+        private final Map<String, Integer> keyCounts = new HashMap<>();
+
+        private Run(OutputSink sink, GenerationManifest previous, GenerationManifest current, SourceWriter writer,
+                    GenerationReport report) {
+            this.sink = sink;
+            this.previous = previous;
+            this.current = current;
+            this.writer = writer;
+            this.report = report;
+        }
+
+        /**
+         * Returns the manifest key of the next endpoint in collection order: its folder path and name,
+         * numbered if several endpoints share them
+         */
+        private String nextKey(Endpoint endpoint) {
+            StringBuilder key = new StringBuilder();
+            for (String folderName : endpoint.getFolderPath()) {
+                key.append(folderName != null ? folderName : "").append('/');
+            }
+            key.append(endpoint.getName());
+
+            int count = keyCounts.merge(key.toString(), 1, Integer::sum);
+            return count == 1 ? key.toString() : key + "#" + count;
+        }
+    }
+
+    /**
+     * A sequential run that receives the endpoints of a collection one at a time, in collection order,
+     * and generates their POJOs as they arrive. Only the endpoint being processed is held in memory.
+     */
+    final class EndpointStream implements Endpoint.Handler, Closeable {
+        private final Run run;
+        // Time between endpoints is spent reading; the time spent on them goes to their own phases
+        private final GenerationReport.Timing reading;
+        private int endpointIndex;
+        private boolean closed;
+
+        private EndpointStream(Run run) {
+            this.run = run;
+            this.reading = run.report.begin(GenerationReport.Phase.READ);
+        }
+
+        @Override
+        public void handle(Endpoint endpoint) throws IOException {
+            generate(endpoint);
+        }
+
+        /**
+         * Generates the POJOs of the next endpoint
+         *
+         * @return The class that represents its request body, which is the class of an earlier endpoint
+         * if their structures are identical, or null if the body has none
+         */
+        String generate(Endpoint endpoint) throws IOException {
+            EndpointPlan plan = processEndpoint(endpoint, run.nextKey(endpoint), endpointIndex++, run);
+            return requestClass(plan, run.registry);
+        }
+
+        /**
+         * Completes the run after the last endpoint: waits for the writer, deletes stale classes and
+         * stores the manifest. Without an item array nothing is stored.
+         *
+         * @param hasItems Whether the collection had a top-level 'item' array
+         */
+        void finish(boolean hasItems) throws IOException {
+            close();
+            if (!hasItems) {
+                System.err.println("Invalid Postman collection format: 'item' field not found");
+                return;
+            }
+            finishRun(run);
+        }
+
+        /**
+         * Stops the writer; a run that was not finished is abandoned
+         */
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            run.report.end(reading);
+            run.writer.close();
+        }
+    }
+
+    /**
+     * Classes planned for the bodies of one endpoint, in the order they were planned,
+     * plus any messages to report
+     */
+    private static final class EndpointPlan {
+        private final Endpoint endpoint;
+        // Prefix of the names of its body classes
+        private final String baseName;
+        private final String key;
+        private final int index;
+        private final ShapeFingerprint fingerprint;
+        // Entry of the previous run if the endpoint did not change since, otherwise null
+        private final GenerationManifest.Entry previous;
+        private final List<ClassPlan> classes = new ArrayList<>();
+        private final List<String> messages = new ArrayList<>();
+        private boolean analyzed;
+        // Time spent analyzing the endpoint, for the report
+        private long nanos;
+
+        private EndpointPlan(Endpoint endpoint, String baseName, String key, int index, ShapeFingerprint fingerprint,
+                             GenerationManifest.Entry previous) {
+            this.endpoint = endpoint;
+            this.baseName = baseName;
+            this.key = key;
+            this.index = index;
+            this.fingerprint = fingerprint;
+            this.previous = previous;
+        }
+
+        /**
+         * Adds a planned body class and all its nested classes, parents before children
+         */
+        private void addRoot(ClassPlan root) {
+            classes.add(root);
+            for (ClassPlan child : root.children) {
+                addRoot(child);
+            }
+        }
+    }
+
+    /**
+     * A class that may be generated: its fields, the nested classes it references
+     * and the structural fingerprint used to deduplicate it
+     */
+    private static final class ClassPlan {
+        private final String className;
+        // Name the class is generated under if no earlier class took it
+        private String preferredName;
+        // Class alias configured for this occurrence, which applies to every class of the same shape
+        private String alias;
+        private final Map<String, FieldPlan> fields = new LinkedHashMap<>();
+        private final List<ClassPlan> children = new ArrayList<>();
+        private ShapeFingerprint fingerprint;
+        private long ordinal;
+
+        private ClassPlan(String className) {
+            this.className = className;
+            this.preferredName = className;
+        }
+    }
+
+    /**
+     * The type of a planned field: either a simple type or a reference to a nested class,
+     * resolved to the class that represents its shape
+     */
+    private static final class FieldPlan {
+        private final String type;
+        private final String nestedClassName;
+        private final boolean list;
+        // Whether the field is a map from keys to the nested class, or to lists of it
+        private final boolean map;
+        private ClassPlan nested;
+        // Whether the field was missing from some of the objects the class was inferred from
+        private boolean optional;
+
+        private FieldPlan(String type, String nestedClassName, boolean list, boolean map) {
+            this.type = type;
+            this.nestedClassName = nestedClassName;
+            this.list = list;
+            this.map = map;
+        }
+
+        private static FieldPlan simple(String type) {
+            return new FieldPlan(type, null, false, false);
+        }
+
+        private static FieldPlan nested(String nestedClassName, boolean list) {
+            return new FieldPlan(null, nestedClassName, list, false);
+        }
+
+        private static FieldPlan map(String nestedClassName, boolean list) {
+            return new FieldPlan(null, nestedClassName, list, true);
+        }
+
+        private String resolvedType(ClassRegistry registry) {
+            if (nested == null) {
+                return type;
+            }
+            String name = registry.classFor(nested.fingerprint);
+            String type = list ? "List<" + name + ">" : name;
+            return map ? "Map<String, " + type + ">" : type;
+        }
+    }
+
+    /**
+     * Fork/join task that applies an action to every index of a range, splitting the range in halves
+     */
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final IndexAction action;
+
+        private RangeTask(int from, int to, int threshold, IndexAction action) {
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                try {
+                    for (int i = from; i < to; i++) {
+                        action.apply(i);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, threshold, action),
+                    new RangeTask(middle, to, threshold, action));
+        }
+    }
+
+    @FunctionalInterface
+    private interface IndexAction {
+        void apply(int index) throws IOException;
+    }
+}
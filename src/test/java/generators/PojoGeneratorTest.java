@@ -0,0 +1,359 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class PojoGeneratorTest {
+    private Path collection;
+
+    @BeforeMethod
+    public void createCollection() throws IOException {
+        collection = Files.createTempFile("pojo-generator", ".json");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteCollection() throws IOException {
+        Files.deleteIfExists(collection);
+    }
+
+    @Test
+    public void primitiveArrayIsWidenedPastTheSampleLimit() throws IOException {
+        JsonArray metrics = new JsonArray();
+        for (int i = 0; i < 3000; i++) {
+            metrics.add(i == 2500 ? new JsonPrimitive(2.5) : new JsonPrimitive(i));
+        }
+        JsonObject body = new JsonObject();
+        body.add("metrics", metrics);
+        writeCollection("Stats", endpoint("GetStats", body.toString()));
+
+        MemorySink sink = generate(new PojoGenerator.Config().setUsePrimitiveArrays(true));
+        String source = source(sink, "StatsGetStatsResponse200");
+
+        assertTrue(source.contains("private double[] metrics;"), source);
+    }
+
+    @Test
+    public void nullPastTheSampleLimitPreventsPrimitiveArray() throws IOException {
+        JsonArray metrics = new JsonArray();
+        for (int i = 0; i < 3000; i++) {
+            metrics.add(i == 2500 ? null : new JsonPrimitive(i));
+        }
+        JsonObject body = new JsonObject();
+        body.add("metrics", metrics);
+        writeCollection("Stats", endpoint("GetStats", body.toString()));
+
+        MemorySink sink = generate(new PojoGenerator.Config().setUsePrimitiveArrays(true));
+        String source = source(sink, "StatsGetStatsResponse200");
+
+        assertTrue(source.contains("private List<Double> metrics;"), source);
+    }
+
+    @Test
+    public void nullAndMissingFieldsPastTheSampleAreBoxed() throws IOException {
+        JsonArray users = new JsonArray();
+        for (int i = 0; i < 2000; i++) {
+            JsonObject user = new JsonObject();
+            user.add("id", i == 1500 ? null : new JsonPrimitive(i));
+            if (i != 1700) {
+                user.addProperty("age", 30);
+            }
+            user.addProperty("active", true);
+            users.add(user);
+        }
+        JsonObject body = new JsonObject();
+        body.add("users", users);
+        writeCollection("Users", endpoint("ListUsers", body.toString()));
+
+        MemorySink sink = generate(new PojoGenerator.Config().setArraySampleLimit(10));
+        String source = source(sink, "UsersListUsersResponse200UsersItem");
+
+        assertTrue(source.contains("private Integer id;"), source);
+        assertTrue(source.contains("private Integer age;"), source);
+        assertTrue(source.contains("private boolean active;"), source);
+    }
+
+    @Test
+    public void aliasOnLaterOccurrenceNamesTheSharedClass() throws IOException {
+        writeCollection("Users",
+                endpoint("GetUser", "{\"id\":1,\"address\":{\"street\":\"Main\",\"zip\":\"123\"}}"),
+                endpoint("CreateUser", "{\"id\":2,\"billingAddress\":{\"street\":\"Side\",\"zip\":\"456\"}}"));
+
+        for (int parallelism : new int[]{1, 4}) {
+            MemorySink sink = generate(new PojoGenerator.Config()
+                    .setParallelism(parallelism)
+                    .setClassAliases(Map.of("*.billingAddress", "PostalAddress")));
+
+            assertTrue(source(sink, "PostalAddress").contains("private String street;"));
+            assertTrue(source(sink, "UsersGetUserResponse200").contains("private PostalAddress address;"));
+            assertTrue(source(sink, "UsersCreateUserResponse200").contains("private PostalAddress billingAddress;"));
+            assertFalse(sink.exists(SourceWriter.sourcePath("models", "UsersGetUserResponse200Address")));
+        }
+    }
+
+    @Test
+    public void conflictingAliasesForOneStructureFail() throws IOException {
+        writeCollection("Users",
+                endpoint("GetUser", "{\"address\":{\"street\":\"Main\"}}"),
+                endpoint("CreateUser", "{\"billingAddress\":{\"street\":\"Side\"}}"));
+
+        PojoGenerator generator = new PojoGenerator.Config()
+                .setOutputSink(new MemorySink())
+                .setClassAliases(Map.of("*.address", "Address", "*.billingAddress", "PostalAddress"))
+                .build();
+
+        IllegalStateException e = expectThrows(IllegalStateException.class,
+                () -> generator.generatePojos(collection.toString()));
+        assertTrue(e.getMessage().contains("Address for UsersGetUserResponse200Address"), e.getMessage());
+        assertTrue(e.getMessage().contains("PostalAddress for UsersCreateUserResponse200BillingAddress"), e.getMessage());
+    }
+
+    @Test
+    public void fieldNamedClassLeavesItsPathNameToOthers() throws IOException {
+        // The first class is named Item after its field, so the second may take its path name
+        writeCollection("Orders",
+                endpoint("GetOrder", "{\"item\":{\"sku\":\"a\"}}"),
+                endpoint("ListOrders", "{\"ordersGetOrderResponse200Item\":{\"count\":1}}"));
+
+        for (int parallelism : new int[]{1, 4}) {
+            MemorySink sink = generate(new PojoGenerator.Config()
+                    .setParallelism(parallelism)
+                    .setClassNaming(PojoGenerator.ClassNaming.FIELD));
+
+            assertTrue(source(sink, "Item").contains("private String sku;"));
+            assertTrue(source(sink, "OrdersGetOrderResponse200Item").contains("private int count;"));
+            assertTrue(source(sink, "OrdersListOrdersResponse200")
+                    .contains("private OrdersGetOrderResponse200Item ordersGetOrderResponse200Item;"));
+        }
+    }
+
+    @Test
+    public void fieldsOfLaterElementsJoinTheItemClass() throws IOException {
+        writeCollection("Shop", endpoint("ListOrders", "{\"orders\":[{\"id\":1},{\"id\":2},{\"id\":3},"
+                + "{\"id\":4},{\"id\":5},{\"id\":6.5,\"note\":\"x\",\"count\":2}]}"));
+
+        MemorySink sink = generate(new PojoGenerator.Config());
+        String source = source(sink, "ShopListOrdersResponse200OrdersItem");
+
+        assertTrue(source.contains("private double id;"), source);
+        assertTrue(source.contains("private String note;"), source);
+        assertTrue(source.contains("private Integer count;"), source);
+    }
+
+    @Test
+    public void examplesOfAStatusFamilyShareOneClass() throws IOException {
+        writeCollection("Users",
+                endpoint("CreateUser",
+                        response(200, "{\"id\":1,\"count\":5}"),
+                        response(201, "{\"id\":2,\"email\":\"a\"}"),
+                        response(404, "{\"error\":\"missing\"}")),
+                endpoint("GetUser", response(200, "{\"id\":1}"), response(200, "{\"id\":2,\"name\":\"b\"}")));
+
+        MemorySink sink = generate(new PojoGenerator.Config());
+
+        String created = source(sink, "UsersCreateUserResponse2xx");
+        assertTrue(created.contains("private int id;"), created);
+        assertTrue(created.contains("private Integer count;"), created);
+        assertTrue(created.contains("private String email;"), created);
+        assertTrue(source(sink, "UsersCreateUserResponse404").contains("private String error;"));
+        assertFalse(sink.exists(SourceWriter.sourcePath("models", "UsersCreateUserResponse200")));
+        assertFalse(sink.exists(SourceWriter.sourcePath("models", "UsersCreateUserResponse201")));
+
+        String fetched = source(sink, "UsersGetUserResponse200");
+        assertTrue(fetched.contains("private int id;"), fetched);
+        assertTrue(fetched.contains("private String name;"), fetched);
+    }
+
+    @Test
+    public void objectsWithDynamicKeysBecomeMaps() throws IOException {
+        writeCollection("Stats", endpoint("GetStats",
+                "{\"byId\":{\"12345\":{\"name\":\"a\"},\"12346\":{\"name\":\"b\"}},"
+                + "\"regions\":{\"eu\":{\"n\":1},\"us\":{\"n\":2},\"asia\":{\"n\":3}},"
+                + "\"totals\":{\"2024-01-01\":3,\"2024-01-02\":4}}"));
+
+        String source = source(generate(new PojoGenerator.Config().setMapKeyThreshold(3)), "StatsGetStatsResponse200");
+        assertTrue(source.contains("private Map<String, StatsGetStatsResponse200ByIdValue> byId;"), source);
+        assertTrue(source.contains("private Map<String, StatsGetStatsResponse200RegionsValue> regions;"), source);
+        assertTrue(source.contains("private Map<String, Integer> totals;"), source);
+
+        MemorySink sink = generate(new PojoGenerator.Config().setMapKeyThreshold(4).setClassFields("*.byId"));
+        source = source(sink, "StatsGetStatsResponse200");
+        assertTrue(source.contains("private StatsGetStatsResponse200ById byId;"), source);
+        assertTrue(source.contains("private StatsGetStatsResponse200Regions regions;"), source);
+        assertTrue(source.contains("private Map<String, Integer> totals;"), source);
+    }
+
+    @Test
+    public void failedWriteEndsTheRun() throws IOException {
+        JsonObject[] endpoints = new JsonObject[20];
+        for (int i = 0; i < endpoints.length; i++) {
+            endpoints[i] = endpoint("GetUser" + i, "{\"id\":1,\"field" + i + "\":\"a\"}");
+        }
+        writeCollection("Users", endpoints);
+        OutputSink failing = new OutputSink() {
+            @Override
+            public boolean write(String path, byte[] content) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public byte[] read(String path) {
+                return null;
+            }
+
+            @Override
+            public SortedSet<String> list() {
+                return new TreeSet<>();
+            }
+
+            @Override
+            public boolean exists(String path) {
+                return false;
+            }
+
+            @Override
+            public boolean delete(String path) {
+                return false;
+            }
+        };
+
+        for (int parallelism : new int[]{1, 4}) {
+            PojoGenerator generator = new PojoGenerator.Config()
+                    .setOutputSink(failing)
+                    .setParallelism(parallelism)
+                    .build();
+
+            IOException e = expectThrows(IOException.class, () -> generator.generatePojos(collection.toString()));
+            assertTrue(e.getCause().getMessage().contains("disk full"), e.toString());
+        }
+    }
+
+    @Test
+    public void concurrentRunsKeepTheirOwnConfiguration() throws Exception {
+        writeCollection("Users",
+                endpoint("GetUser", "{\"id\":1,\"address\":{\"street\":\"Main\"}}"),
+                endpoint("ListUsers", "{\"users\":[{\"id\":1,\"tags\":[\"x\"]}]}"));
+        List<Supplier<PojoGenerator.Config>> configs = List.of(
+                () -> new PojoGenerator.Config().setPackageName("com.a.models"),
+                () -> new PojoGenerator.Config().setPackageName("com.b.models").setUseLombok(false)
+                        .setUseJacksonAnnotations(false).setParallelism(4));
+        List<SortedMap<String, byte[]>> expected = new ArrayList<>();
+        for (Supplier<PojoGenerator.Config> config : configs) {
+            expected.add(generate(config.get()).getFiles());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<MemorySink>> runs = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                Supplier<PojoGenerator.Config> config = configs.get(i % 2);
+                runs.add(pool.submit(() -> generate(config.get())));
+            }
+            for (int i = 0; i < runs.size(); i++) {
+                SortedMap<String, byte[]> files = runs.get(i).get().getFiles();
+                assertEquals(files.keySet(), expected.get(i % 2).keySet());
+                for (Map.Entry<String, byte[]> file : expected.get(i % 2).entrySet()) {
+                    assertEquals(files.get(file.getKey()), file.getValue(), file.getKey());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns an endpoint that responds with the given body
+     */
+    private static JsonObject endpoint(String name, String responseBody) {
+        return endpoint(name, response(200, responseBody));
+    }
+
+    /**
+     * Returns an endpoint with the given response examples
+     */
+    private static JsonObject endpoint(String name, JsonObject... examples) {
+        JsonArray responses = new JsonArray();
+        for (JsonObject example : examples) {
+            responses.add(example);
+        }
+
+        JsonObject request = new JsonObject();
+        request.addProperty("method", "GET");
+        request.addProperty("url", "{{base_url}}/" + name.toLowerCase());
+
+        JsonObject endpoint = new JsonObject();
+        endpoint.addProperty("name", name);
+        endpoint.add("request", request);
+        endpoint.add("response", responses);
+        return endpoint;
+    }
+
+    private static JsonObject response(int code, String body) {
+        JsonObject response = new JsonObject();
+        response.addProperty("code", code);
+        response.addProperty("body", body);
+        return response;
+    }
+
+    /**
+     * Writes a collection with a single folder of endpoints
+     */
+    private void writeCollection(String folderName, JsonObject... endpoints) throws IOException {
+        JsonArray items = new JsonArray();
+        for (JsonObject endpoint : endpoints) {
+            items.add(endpoint);
+        }
+
+        JsonObject folder = new JsonObject();
+        folder.addProperty("name", folderName);
+        folder.add("item", items);
+        JsonArray folders = new JsonArray();
+        folders.add(folder);
+
+        JsonObject root = new JsonObject();
+        root.add("item", folders);
+        Files.writeString(collection, root.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates into memory
+     */
+    private MemorySink generate(PojoGenerator.Config config) throws IOException {
+        MemorySink sink = new MemorySink();
+        config.setOutputSink(sink).build().generatePojos(collection.toString());
+        return sink;
+    }
+
+    /**
+     * Returns the source of a generated class
+     */
+    private static String source(MemorySink sink, String className) {
+        String source = sink.getText(SourceWriter.sourcePath("models", className));
+        assertNotNull(source, className + " not generated, got " + sink.list());
+        return source;
+    }
+}
@@ -0,0 +1,174 @@
+package generators;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A 128-bit structural fingerprint of a JSON object: its field names and their inferred types,
+ * with nested objects contributing their own fingerprints. Sample values do not take part,
+ * so objects with the same shape share a fingerprint regardless of their data.
+ * The same hash also fingerprints endpoint contents for incremental regeneration.
+ */
+public final class ShapeFingerprint {
+    private static final Comparator<ShapeFingerprint> ORDER =
+            Comparator.comparingLong((ShapeFingerprint f) -> f.high).thenComparingLong(f -> f.low);
+
+    private final long high;
+    private final long low;
+
+    private ShapeFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Combines field fingerprints into the fingerprint of the object holding them.
+     * The result does not depend on the order of the fields.
+     */
+    static ShapeFingerprint ofFields(List<ShapeFingerprint> fields) {
+        ShapeFingerprint[] sorted = fields.toArray(new ShapeFingerprint[0]);
+        Arrays.sort(sorted, ORDER);
+
+        Hasher hasher = new Hasher().putString("object").putLong(sorted.length);
+        for (ShapeFingerprint field : sorted) {
+            hasher.putFingerprint(field);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Combines the distinct fingerprints of the elements of an array into the fingerprint of the array.
+     * The result depends neither on the order of the elements nor on how often each occurs.
+     */
+    static ShapeFingerprint ofElements(Set<ShapeFingerprint> elements) {
+        ShapeFingerprint[] sorted = elements.toArray(new ShapeFingerprint[0]);
+        Arrays.sort(sorted, ORDER);
+
+        Hasher hasher = new Hasher().putString("array").putLong(sorted.length);
+        for (ShapeFingerprint element : sorted) {
+            hasher.putFingerprint(element);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Parses a fingerprint from the hex form returned by {@link #toString()}
+     *
+     * @throws IllegalArgumentException If the text is not a 32 digit hex number
+     */
+    static ShapeFingerprint parse(String hex) {
+        if (hex == null || hex.length() != 32) {
+            throw new IllegalArgumentException("Invalid fingerprint: " + hex);
+        }
+        return new ShapeFingerprint(Long.parseUnsignedLong(hex.substring(0, 16), 16),
+                Long.parseUnsignedLong(hex.substring(16), 16));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ShapeFingerprint)) {
+            return false;
+        }
+        ShapeFingerprint other = (ShapeFingerprint) obj;
+        return high == other.high && low == other.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high ^ low);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+
+    /**
+     * Incremental 128-bit hasher built from two independently seeded 64-bit lanes
+     */
+    static final class Hasher {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private long h1 = 0x9368e53c2f6af274L;
+        private long h2 = 0x586dcd208f7cd3fdL;
+
+        Hasher putLong(long value) {
+            h1 ^= Long.rotateLeft(value * C1, 31) * C2;
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= Long.rotateLeft(value * C2, 33) * C1;
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495ab5;
+            return this;
+        }
+
+        Hasher putString(String value) {
+            int length = value.length();
+            putLong(length);
+
+            // Four chars per round, so that long bodies hash quickly
+            int i = 0;
+            for (; i + 4 <= length; i += 4) {
+                putLong((long) value.charAt(i) << 48 | (long) value.charAt(i + 1) << 32
+                        | (long) value.charAt(i + 2) << 16 | value.charAt(i + 3));
+            }
+            for (; i < length; i++) {
+                putLong(value.charAt(i));
+            }
+            return this;
+        }
+
+        /**
+         * Hashes the bytes between two absolute positions of a buffer, without changing its position
+         */
+        Hasher putBytes(ByteBuffer buffer, int start, int end) {
+            putLong(end - start);
+
+            // Eight bytes per round; absolute reads use big-endian order unless the buffer says otherwise
+            int i = start;
+            for (; i + 8 <= end; i += 8) {
+                putLong(buffer.getLong(i));
+            }
+            for (; i < end; i++) {
+                putLong(buffer.get(i));
+            }
+            return this;
+        }
+
+        /**
+         * Hashes the UTF-8 encoding of a string, which matches {@link #putBytes} on the encoded bytes
+         */
+        Hasher putUtf8(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            return putBytes(ByteBuffer.wrap(bytes), 0, bytes.length);
+        }
+
+        Hasher putFingerprint(ShapeFingerprint fingerprint) {
+            return putLong(fingerprint.high).putLong(fingerprint.low);
+        }
+
+        ShapeFingerprint finish() {
+            long a = fmix(h1 + h2);
+            long b = fmix(h2 + a);
+            return new ShapeFingerprint(a, b);
+        }
+
+        private static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
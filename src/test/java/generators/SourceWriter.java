@@ -0,0 +1,272 @@
+package generators;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes generated Java sources and class files to an {@link OutputSink} on a small pool of I/O threads.
+ * Generators hand finished sources over through a bounded queue, so rendering does not wait
+ * for the sink, while a slow disk blocks producers instead of piling up sources in memory.
+ * Sources are encoded as UTF-8.
+ */
+public final class SourceWriter implements AutoCloseable {
+    public static final int DEFAULT_THREADS = 2;
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    // Maximum number of files a worker takes from the queue at once
+    private static final int BATCH_SIZE = 32;
+
+    // Marks the end of the queue; each worker passes it on to the next one before stopping
+    private static final SourceFile END = new SourceFile(null, null, null);
+
+    private final OutputSink sink;
+    private final BlockingQueue<SourceFile> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    // First IOException or RuntimeException of a worker; later files are drained without being written
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final LongAdder filesWritten = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder filesUnchanged = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final LongAdder writeCpuNanos = new LongAdder();
+    private boolean closed;
+
+    /**
+     * Creates a writer with the default number of threads and queue capacity
+     *
+     * @param sink Destination of the sources, whose root is the source root
+     */
+    public SourceWriter(OutputSink sink) {
+        this(sink, DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Creates a writer and starts its I/O threads. Closing the writer does not close the sink.
+     *
+     * @param sink          Destination of the sources, whose root is the source root
+     * @param threads       Number of I/O threads
+     * @param queueCapacity Number of sources that may wait to be written before producers block
+     */
+    public SourceWriter(OutputSink sink, int threads, int queueCapacity) {
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            Thread worker = new Thread(this::drain, "source-writer-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queues a source file for writing, blocking while the queue is full
+     *
+     * @param packageName Package of the class, which determines its directory
+     * @param className   Simple name of the class
+     * @param source      Complete source of the class
+     * @throws IOException If an earlier write failed or the caller was interrupted
+     */
+    public void write(String packageName, String className, String source) throws IOException {
+        throwIfFailed();
+        try {
+            queue.put(new SourceFile(sourcePath(packageName, className), source, null));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing " + className);
+        }
+    }
+
+    /**
+     * Queues a class file for writing, blocking while the queue is full
+     *
+     * @param packageName Package of the class, which determines its directory
+     * @param className   Simple name of the class
+     * @param classFile   Complete class file
+     * @throws IOException If an earlier write failed or the caller was interrupted
+     */
+    public void writeClass(String packageName, String className, byte[] classFile) throws IOException {
+        throwIfFailed();
+        try {
+            queue.put(new SourceFile(classPath(packageName, className), null, classFile));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing " + className);
+        }
+    }
+
+    /**
+     * Number of files written so far
+     */
+    public long getFilesWritten() {
+        return filesWritten.sum();
+    }
+
+    /**
+     * Number of bytes written so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * Number of files skipped so far because the sink already held the same content
+     */
+    public long getFilesUnchanged() {
+        return filesUnchanged.sum();
+    }
+
+    /**
+     * Wall time the I/O threads spent encoding and writing files so far, summed over the threads
+     */
+    public long getWriteNanos() {
+        return writeNanos.sum();
+    }
+
+    /**
+     * CPU time the I/O threads spent encoding and writing files so far, summed over the threads
+     */
+    public long getWriteCpuNanos() {
+        return writeCpuNanos.sum();
+    }
+
+    /**
+     * Waits until all queued files are written and stops the I/O threads
+     *
+     * @throws IOException If any of the files could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        boolean interrupted = !putEnd();
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                try {
+                    worker.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        throwIfFailed();
+    }
+
+    /**
+     * Worker loop: takes batches of files from the queue until the end marker arrives.
+     * After a failure the remaining files are only drained so that producers never block forever.
+     */
+    private void drain() {
+        List<SourceFile> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                continue;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+
+            boolean end = false;
+            for (SourceFile file : batch) {
+                if (file == END) {
+                    end = true;
+                } else if (failure.get() == null) {
+                    writeFile(file);
+                }
+            }
+            batch.clear();
+
+            if (end) {
+                putEnd();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts the end marker into the queue, waiting for room even when interrupted
+     *
+     * @return false if the thread was interrupted meanwhile
+     */
+    private boolean putEnd() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(END);
+                return !interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    private void writeFile(SourceFile file) {
+        long start = System.nanoTime();
+        long startCpu = GenerationReport.cpuTime();
+        try {
+            byte[] bytes = file.content != null ? file.content : file.source.getBytes(StandardCharsets.UTF_8);
+            if (!sink.write(file.path, bytes)) {
+                filesUnchanged.increment();
+                return;
+            }
+
+            filesWritten.increment();
+            bytesWritten.add(bytes.length);
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+        } finally {
+            writeNanos.add(System.nanoTime() - start);
+            writeCpuNanos.add(GenerationReport.cpuTime() - startCpu);
+        }
+    }
+
+    /**
+     * Returns the path of the source file of a class, relative to the source root
+     */
+    static String sourcePath(String packageName, String className) {
+        return packageName.replace('.', '/') + "/" + className + ".java";
+    }
+
+    /**
+     * Returns the path of the class file of a class, relative to the class output root
+     */
+    static String classPath(String packageName, String className) {
+        return packageName.replace('.', '/') + "/" + className + ".class";
+    }
+
+    private void throwIfFailed() throws IOException {
+        Exception e = failure.get();
+        if (e != null) {
+            throw new IOException("Failed to write generated sources to " + sink, e);
+        }
+    }
+
+    /**
+     * A generated file waiting to be written: a source, encoded by the worker, or binary content
+     */
+    private static final class SourceFile {
+        private final String path;
+        private final String source;
+        private final byte[] content;
+
+        private SourceFile(String path, String source, byte[] content) {
+            this.path = path;
+            this.source = source;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package generators;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class SourceWriterTest {
+
+    @Test
+    public void allQueuedFilesAreWrittenOnClose() throws IOException {
+        MemorySink sink = new MemorySink();
+        // A queue much smaller than the number of files makes the producer wait for the workers
+        try (SourceWriter writer = new SourceWriter(sink, 3, 2)) {
+            for (int i = 0; i < 500; i++) {
+                writer.write("com.example.models", "Model" + i, "class Model" + i + " {}\n");
+            }
+            writer.writeClass("com.example.models", "Model0", new byte[]{(byte) 0xCA, (byte) 0xFE});
+        }
+
+        assertEquals(sink.list().size(), 501);
+        assertEquals(sink.getText("com/example/models/Model42.java"), "class Model42 {}\n");
+        assertEquals(sink.read("com/example/models/Model0.class"), new byte[]{(byte) 0xCA, (byte) 0xFE});
+    }
+
+    @Test
+    public void unchangedFilesAreCounted() throws IOException {
+        MemorySink sink = new MemorySink();
+        sink.write("models/User.java", "class User {}\n".getBytes(StandardCharsets.UTF_8));
+
+        SourceWriter writer = new SourceWriter(sink);
+        try (writer) {
+            writer.write("models", "User", "class User {}\n");
+            writer.write("models", "Order", "class Order { int \u00e9; }\n");
+        }
+
+        assertEquals(writer.getFilesUnchanged(), 1);
+        assertEquals(writer.getFilesWritten(), 1);
+        assertEquals(writer.getBytesWritten(), "class Order { int \u00e9; }\n".getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void failedWriteIsReported() throws IOException {
+        OutputSink failing = new OutputSink() {
+            @Override
+            public boolean write(String path, byte[] content) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public byte[] read(String path) {
+                return null;
+            }
+
+            @Override
+            public SortedSet<String> list() {
+                return new TreeSet<>();
+            }
+
+            @Override
+            public boolean exists(String path) {
+                return false;
+            }
+
+            @Override
+            public boolean delete(String path) {
+                return false;
+            }
+        };
+
+        SourceWriter writer = new SourceWriter(failing, 2, 4);
+        for (int i = 0; i < 20; i++) {
+            try {
+                writer.write("models", "Model" + i, "class Model" + i + " {}\n");
+            } catch (IOException e) {
+                // An earlier write failed; the failure is also reported on close
+                break;
+            }
+        }
+
+        IOException e = expectThrows(IOException.class, writer::close);
+        assertTrue(e.getCause().getMessage().contains("disk full"), e.toString());
+    }
+}
@@ -1,17 +1,12 @@
 package generators;
 
 import com.google.gson.*;
-import lombok.AccessLevel;
-import lombok.NoArgsConstructor;
 import org.apache.commons.text.CaseUtils;
 
 
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.Closeable;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -19,30 +14,67 @@ import java.util.regex.Pattern;
 /**
  * Generates TestNG Rest Assured test classes from Postman collection items.
  * Each endpoint in the Postman collection will be converted to a TestNG test method.
+ * Instances are immutable, so one generator can be used for several collections concurrently.
  */
-@NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class TestClassGenerator {
-    // Default configuration - can be customized via builder
-    private static String outputDir = "src/test/java";
-    private static String packageName = "tests";
-    private static String baseUrl = "{{base_url}}";
-    private static String basePackage = "com.api.automation";
-    private static boolean generateBaseClass = true;
-    private static String pojoPackage = "models";
+    // Configuration snapshot taken from the Config this generator was built from
+    private final String outputDir;
+    private final String packageName;
+    private final String baseUrl;
+    private final String basePackage;
+    private final boolean generateBaseClass;
+    private final String pojoPackage;
+    private final int writerThreads;
+    private final OutputSink outputSink;
+    private final String manifestDir;
+    private final OutputSink manifestSink;
+    private final int maxMethodsPerClass;
+    private final int maxClassBytes;
+    private final String reportFile;
+
+    // Number of slowest resources and largest request bodies listed in the report
+    private static final int REPORT_TOP_COUNT = 10;
 
     // Regex pattern to find Postman variables
     private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\{\\{([^}]+)\\}\\}");
 
+    private TestClassGenerator(Config config) {
+        this.outputDir = config.outputDir;
+        this.packageName = config.packageName;
+        this.baseUrl = config.baseUrl;
+        this.basePackage = config.basePackage;
+        this.generateBaseClass = config.generateBaseClass;
+        this.pojoPackage = config.pojoPackage;
+        this.writerThreads = config.writerThreads;
+        this.outputSink = config.outputSink;
+        this.manifestDir = config.manifestDir != null
+                ? config.manifestDir
+                : GenerationManifest.defaultDirectory(config.outputDir);
+        this.manifestSink = config.manifestSink == null && config.manifestDir == null && config.outputSink != null
+                ? new MemorySink()
+                : config.manifestSink;
+        this.maxMethodsPerClass = config.maxMethodsPerClass;
+        this.maxClassBytes = config.maxClassBytes;
+        this.reportFile = config.reportFile;
+    }
+
     /**
      * Configures the generator with custom settings
      */
     public static class Config {
-        private String outputDir = TestClassGenerator.outputDir;
-        private String packageName = TestClassGenerator.packageName;
-        private String baseUrl = TestClassGenerator.baseUrl;
-        private String basePackage = TestClassGenerator.basePackage;
-        private boolean generateBaseClass = TestClassGenerator.generateBaseClass;
-        private String pojoPackage = TestClassGenerator.pojoPackage;
+        private String outputDir = "src/test/java";
+        private String packageName = "tests";
+        private String baseUrl = "{{base_url}}";
+        private String basePackage = "com.api.automation";
+        private boolean generateBaseClass = true;
+        private String pojoPackage = "models";
+        private int writerThreads = SourceWriter.DEFAULT_THREADS;
+        private OutputSink outputSink;
+        private String manifestDir;
+        private OutputSink manifestSink;
+        private int maxMethodsPerClass;
+        private int maxClassBytes;
+        private String reportFile;
 
         public Config setOutputDir(String dir) {
             this.outputDir = dir;
@@ -74,82 +106,397 @@ public class TestClassGenerator {
             return this;
         }
 
-        public void apply() {
-            TestClassGenerator.outputDir = this.outputDir;
-            TestClassGenerator.packageName = this.packageName;
-            TestClassGenerator.baseUrl = this.baseUrl;
-            TestClassGenerator.basePackage = this.basePackage;
-            TestClassGenerator.generateBaseClass = this.generateBaseClass;
-            TestClassGenerator.pojoPackage = this.pojoPackage;
+        /**
+         * Sets the number of threads writing generated files
+         */
+        public Config setWriterThreads(int threads) {
+            this.writerThreads = Math.max(1, threads);
+            return this;
+        }
+
+        /**
+         * Sets the sink generated files are written to instead of the output directory.
+         * The sink is shared by all runs of the generator and is not closed by it.
+         */
+        public Config setOutputSink(OutputSink sink) {
+            this.outputSink = sink;
+            return this;
+        }
+
+        /**
+         * Sets the directory the manifests that make runs incremental are kept in; by default
+         * {@code .restautomator/<name>} next to the output directory, outside the source root
+         */
+        public Config setManifestDir(String dir) {
+            this.manifestDir = dir;
+            return this;
+        }
+
+        /**
+         * Sets the sink the manifests are kept in instead of a directory. A generator configured with an
+         * output sink but neither of these keeps its manifests in memory, for its own runs only.
+         */
+        public Config setManifestSink(OutputSink sink) {
+            this.manifestSink = sink;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of test methods per class; 0 means no limit.
+         * Resources with more endpoints are split into numbered shards.
+         */
+        public Config setMaxMethodsPerClass(int max) {
+            this.maxMethodsPerClass = Math.max(0, max);
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a test class source in bytes; 0 means no limit.
+         * Resources whose test class would be larger are split into numbered shards.
+         */
+        public Config setMaxClassBytes(int max) {
+            this.maxClassBytes = Math.max(0, max);
+            return this;
+        }
+
+        /**
+         * Sets a file each run writes a JSON report to, with the time spent per phase,
+         * the number of endpoints, resources and classes, and the slowest resources and largest request bodies
+         */
+        public Config setReportFile(String file) {
+            this.reportFile = file;
+            return this;
+        }
+
+        /**
+         * Creates a generator from the current settings. Later changes to this
+         * config do not affect generators that were already built.
+         */
+        public TestClassGenerator build() {
+            return new TestClassGenerator(this);
         }
     }
 
     /**
-     * Main entry point to generate test classes from a Postman collection file
+     * Main entry point to generate test classes from a Postman collection file.
+     * Only test classes of resources that changed since the previous run into the same output
+     * directory are generated again.
      *
      * @param postmanCollectionPath Path to the Postman collection JSON file
      * @throws IOException If file operations fail
      */
-    public static void generateTestClasses(String postmanCollectionPath) throws IOException {
-        JsonObject collection = JsonParser.parseReader(new FileReader(postmanCollectionPath)).getAsJsonObject();
+    public void generateTestClasses(String postmanCollectionPath) throws IOException {
+        try (EndpointStream stream = openStream()) {
+            stream.finish(CollectionReader.readEndpoints(postmanCollectionPath, stream));
+        }
+    }
+
+    /**
+     * Generates test classes from an already parsed collection model
+     *
+     * @param model The parsed Postman collection
+     * @throws IOException If file operations fail
+     */
+    public void generateTestClasses(CollectionModel model) throws IOException {
+        try (EndpointStream stream = openStream()) {
+            for (Endpoint endpoint : model.getEndpoints()) {
+                stream.handle(endpoint);
+            }
+            stream.finish(model.isHasItems());
+        }
+    }
 
-        createOutputDirectory();
+    /**
+     * Generates test classes from a model whose POJOs were generated by a {@link PojoGenerator}, building
+     * request bodies with the classes it resolved
+     *
+     * @param requestClasses Classes of the request bodies by endpoint, as returned by
+     *                       {@link PojoGenerator#generatePojosResolvingRequests(CollectionModel)}
+     */
+    void generateTestClasses(CollectionModel model, Map<Endpoint, String> requestClasses) throws IOException {
+        try (EndpointStream stream = openStream()) {
+            for (Endpoint endpoint : model.getEndpoints()) {
+                stream.handle(endpoint, requestClasses.get(endpoint));
+            }
+            stream.finish(model.isHasItems());
+        }
+    }
 
-        // Generate base test class if requested
-        if (generateBaseClass) {
-            generateBaseTestClass();
+    /**
+     * Starts a run that receives the endpoints of a collection as they are read
+     * and generates the test classes once all have arrived
+     */
+    EndpointStream openStream() throws IOException {
+        OutputSink sink = outputSink != null ? outputSink : new DirectorySink(outputDir);
+        OutputSink store = manifestStore();
+        GenerationManifest previous = loadManifest(sink, store);
+        GenerationManifest current = GenerationManifest.create(sink, store, manifestName(), manifestSettings());
+
+        SourceWriter writer = new SourceWriter(sink, writerThreads, SourceWriter.DEFAULT_QUEUE_CAPACITY);
+        try {
+            prepareOutput(writer);
+        } catch (IOException | RuntimeException e) {
+            writer.close();
+            throw e;
         }
+        return new EndpointStream(startReport(), sink, previous, current, writer);
+    }
 
-        // Create a map to group endpoints by resource for better organization
-        Map<String, List<JsonObject>> resourceEndpoints = new HashMap<>();
+    /**
+     * Returns the directory the generator writes to, unless it was configured with an output sink
+     */
+    String getOutputDir() {
+        return outputSink == null ? outputDir : null;
+    }
 
-        // Process the collection recursively to handle nested folders
-        if (collection.has("item")) {
-            populateResourceEndpointsMap(collection.getAsJsonArray("item"), "", resourceEndpoints);
-        } else {
-            System.err.println("Invalid Postman collection format: 'item' field not found");
-            return;
+    private GenerationReport startReport() {
+        return reportFile != null ? GenerationReport.start("tests", REPORT_TOP_COUNT) : GenerationReport.disabled();
+    }
+
+    private OutputSink manifestStore() {
+        return manifestSink != null ? manifestSink : new DirectorySink(manifestDir);
+    }
+
+    private String manifestName() {
+        return "tests-" + packageName;
+    }
+
+    /**
+     * Fingerprint of the settings that affect the generated resource test classes
+     */
+    private ShapeFingerprint manifestSettings() {
+        return new ShapeFingerprint.Hasher()
+                .putString(packageName)
+                .putString(baseUrl)
+                .putString(basePackage)
+                .putString(pojoPackage)
+                .putLong(maxMethodsPerClass)
+                .putLong(maxClassBytes)
+                .finish();
+    }
+
+    /**
+     * Loads the manifest of the previous run and removes it until this run completes,
+     * so that an interrupted run is followed by a full one
+     */
+    private GenerationManifest loadManifest(OutputSink sink, OutputSink store) throws IOException {
+        GenerationManifest previous = GenerationManifest.load(sink, store, manifestName(), manifestSettings());
+        previous.discard();
+        return previous;
+    }
+
+    /**
+     * Deletes the test classes of resources that no longer exist, stores the manifest of this run
+     * and writes the report if one is configured
+     */
+    private void finishRun(OutputSink sink, SourceWriter writer, GenerationManifest previous,
+                           GenerationManifest current, int upToDate, GenerationReport report) throws IOException {
+        int deleted;
+        GenerationReport.Timing writing = report.begin(GenerationReport.Phase.WRITE);
+        try {
+            deleted = current.deleteStaleFiles(previous);
+            current.save();
+        } finally {
+            report.end(writing);
         }
 
-        // Generate test classes for each resource group
-        for (Map.Entry<String, List<JsonObject>> entry : resourceEndpoints.entrySet()) {
-            String resourceName = entry.getKey();
-            List<JsonObject> endpoints = entry.getValue();
+        System.out.println("Generated " + writer.getFilesWritten() + " test classes (" + writer.getBytesWritten()
+                + " bytes) in " + sink + ", " + writer.getFilesUnchanged() + " unchanged, "
+                + upToDate + " resources up to date, " + deleted + " stale test classes deleted");
+
+        if (report.isEnabled()) {
+            report.add(GenerationReport.Phase.WRITE, writer.getWriteNanos(), writer.getWriteCpuNanos());
+            report.count("upToDate", upToDate);
+            report.count("filesWritten", writer.getFilesWritten());
+            report.count("bytesWritten", writer.getBytesWritten());
+            report.count("filesUnchanged", writer.getFilesUnchanged());
+            report.count("staleDeleted", deleted);
+            report.write(reportFile, sink);
+        }
+    }
+
+    /**
+     * A run that receives the endpoints of a collection one at a time, in collection order. Only the
+     * request part of each endpoint is kept until the test classes are generated after the last one.
+     */
+    final class EndpointStream implements Endpoint.Handler, Closeable {
+        private final GenerationReport report;
+        private final OutputSink sink;
+        private final GenerationManifest previous;
+        private final GenerationManifest current;
+        private final SourceWriter writer;
+        private final GenerationReport.Timing reading;
+        // Endpoints grouped by resource, in collection order
+        private final Map<String, List<Endpoint>> resourceEndpoints = new LinkedHashMap<>();
+        // Classes of request bodies resolved by the POJO generator, null for bodies without one
+        private final Map<Endpoint, String> requestClasses = new IdentityHashMap<>();
+        private boolean reads = true;
+
+        private EndpointStream(GenerationReport report, OutputSink sink, GenerationManifest previous,
+                               GenerationManifest current, SourceWriter writer) {
+            this.report = report;
+            this.sink = sink;
+            this.previous = previous;
+            this.current = current;
+            this.writer = writer;
+            this.reading = report.begin(GenerationReport.Phase.READ);
+        }
 
-            generateResourceTestClass(resourceName, endpoints);
+        /**
+         * Adds an endpoint whose request body class, if any, is assumed to have the conventional name
+         */
+        @Override
+        public void handle(Endpoint endpoint) {
+            addToResourceEndpointsMap(endpoint.withoutExamples(), resourceEndpoints);
+        }
+
+        /**
+         * Adds an endpoint whose POJOs were generated by a {@link PojoGenerator}
+         *
+         * @param requestClass The class it resolved for the request body, or null if the body has none
+         */
+        void handle(Endpoint endpoint, String requestClass) {
+            Endpoint requestPart = endpoint.withoutExamples();
+            requestClasses.put(requestPart, requestClass);
+            addToResourceEndpointsMap(requestPart, resourceEndpoints);
+        }
+
+        /**
+         * Generates the test classes after the last endpoint, deletes stale ones and stores the manifest.
+         * Without an item array nothing is stored.
+         *
+         * @param hasItems Whether the collection had a top-level 'item' array
+         */
+        void finish(boolean hasItems) throws IOException {
+            int upToDate;
+            try {
+                endReading();
+                if (!hasItems) {
+                    System.err.println("Invalid Postman collection format: 'item' field not found");
+                    return;
+                }
+                upToDate = generateResourceTestClasses(resourceEndpoints, requestClasses, writer, previous, current,
+                        report);
+            } finally {
+                close();
+            }
+            finishRun(sink, writer, previous, current, upToDate, report);
+        }
+
+        /**
+         * Stops the writer; a run that was not finished is abandoned
+         */
+        @Override
+        public void close() throws IOException {
+            endReading();
+            writer.close();
+        }
+
+        private void endReading() {
+            if (reads) {
+                reads = false;
+                report.end(reading);
+            }
+        }
+    }
+
+    /**
+     * Creates the base test class if requested
+     */
+    private void prepareOutput(SourceWriter writer) throws IOException {
+        // Generate base test class if requested
+        if (generateBaseClass) {
+            generateBaseTestClass(writer);
         }
     }
 
     /**
-     * Recursively processes items in the Postman collection, grouping them by resource
+     * Generates test classes for each resource group whose endpoints changed since the previous run
+     *
+     * @param requestClasses Classes of request bodies resolved by the POJO generator
+     * @return The number of resources whose test class was up to date
      */
-    private static void populateResourceEndpointsMap(JsonArray items, String folderPath,
-                                                     Map<String, List<JsonObject>> resourceEndpoints) {
-        for (JsonElement item : items) {
-            JsonObject itemObj = item.getAsJsonObject();
-            String itemName = itemObj.has("name") ? itemObj.get("name").getAsString() : "Unknown";
-
-            // Check if this is a folder (contains sub-items)
-            if (itemObj.has("item")) {
-                String newPath = folderPath.isEmpty() ? itemName : folderPath + "/" + itemName;
-                populateResourceEndpointsMap(itemObj.getAsJsonArray("item"), newPath, resourceEndpoints);
-            } else {
-                // This is an endpoint, not a folder
-                if (itemObj.has("request")) {
-                    // Determine resource group from path or name
-                    String resourceName = determineResourceName(itemObj, folderPath);
-                    resourceEndpoints
-                            .computeIfAbsent(resourceName, k -> new ArrayList<>())
-                            .add(itemObj);
+    private int generateResourceTestClasses(Map<String, List<Endpoint>> resourceEndpoints,
+                                            Map<Endpoint, String> requestClasses, SourceWriter writer,
+                                            GenerationManifest previous, GenerationManifest current,
+                                            GenerationReport report) throws IOException {
+        int upToDate = 0;
+        for (Map.Entry<String, List<Endpoint>> entry : resourceEndpoints.entrySet()) {
+            String resourceName = entry.getKey();
+            List<Endpoint> endpoints = entry.getValue();
+            report.count("resources", 1);
+            report.count("endpoints", endpoints.size());
+
+            // The test class depends on the requests of its endpoints, in order, and the classes of their bodies
+            boolean unchanged;
+            ShapeFingerprint fingerprint;
+            GenerationManifest.Entry recorded = previous.get(resourceName);
+            GenerationReport.Timing inferring = report.begin(GenerationReport.Phase.INFER);
+            try {
+                ShapeFingerprint.Hasher hasher = new ShapeFingerprint.Hasher().putString(resourceName);
+                for (Endpoint endpoint : endpoints) {
+                    hasher.putFingerprint(endpoint.withoutExamples().fingerprint());
+                    String requestClass = requestPojoName(endpoint, requestClasses);
+                    hasher.putLong(requestClass != null ? 1 : 0);
+                    if (requestClass != null) {
+                        hasher.putString(requestClass);
+                    }
                 }
+                fingerprint = hasher.finish();
+                unchanged = recorded != null && recorded.hasFingerprint(fingerprint)
+                        && allExist(recorded.getFiles(), current);
+            } finally {
+                report.end(inferring);
+            }
+            if (unchanged) {
+                current.put(resourceName, recorded);
+                upToDate++;
+                continue;
             }
+
+            long start = report.nanoTime();
+            List<String> files = generateResourceTestClass(resourceName, endpoints, requestClasses, writer, report);
+            report.count("classes", files.size());
+            report.itemTime(resourceName, report.nanoTime() - start);
+            current.put(resourceName, new GenerationManifest.Entry(fingerprint, files,
+                    Collections.emptyList(), Collections.emptyMap()));
         }
+        return upToDate;
+    }
+
+    private static boolean allExist(List<String> files, GenerationManifest manifest) {
+        for (String file : files) {
+            if (!manifest.exists(file)) {
+                return false;
+            }
+        }
+        return !files.isEmpty();
+    }
+
+    /**
+     * Adds an endpoint to its resource group
+     */
+    private static void addToResourceEndpointsMap(Endpoint endpoint, Map<String, List<Endpoint>> resourceEndpoints) {
+        if (!endpoint.hasRequest()) {
+            return;
+        }
+
+        List<String> folderNames = new ArrayList<>();
+        for (String folderName : endpoint.getFolderPath()) {
+            folderNames.add(folderName != null ? folderName : "Unknown");
+        }
+
+        // Determine resource group from path or name
+        String resourceName = determineResourceName(endpoint, String.join("/", folderNames));
+        resourceEndpoints
+                .computeIfAbsent(resourceName, k -> new ArrayList<>())
+                .add(endpoint);
     }
 
     /**
      * Determines the resource name for an endpoint
      */
-    private static String determineResourceName(JsonObject endpoint, String folderPath) {
+    private static String determineResourceName(Endpoint endpoint, String folderPath) {
         // Try to use folder path first
         if (!folderPath.isEmpty()) {
             String[] parts = folderPath.split("/");
@@ -157,32 +504,26 @@ public class TestClassGenerator {
         }
 
         // Try to extract from URL path
-        if (endpoint.has("request")) {
-            JsonObject request = endpoint.getAsJsonObject("request");
-            if (request.has("url")) {
-                JsonElement urlElement = request.get("url");
-                String url = "";
-
-                if (urlElement.isJsonObject() && urlElement.getAsJsonObject().has("path")) {
-                    JsonArray pathArray = urlElement.getAsJsonObject().getAsJsonArray("path");
-                    if (pathArray != null && pathArray.size() > 0) {
-                        return sanitizeResourceName(pathArray.get(0).getAsString());
-                    }
-                } else if (urlElement.isJsonPrimitive()) {
-                    url = urlElement.getAsString();
-                    String[] pathParts = url.split("/");
-                    for (String part : pathParts) {
-                        if (!part.isEmpty() && !part.startsWith("{{") && !part.contains(":")) {
-                            return sanitizeResourceName(part);
-                        }
+        JsonElement urlElement = endpoint.getUrl();
+        if (urlElement != null) {
+            if (urlElement.isJsonObject() && urlElement.getAsJsonObject().has("path")) {
+                JsonArray pathArray = urlElement.getAsJsonObject().getAsJsonArray("path");
+                if (pathArray != null && pathArray.size() > 0) {
+                    return sanitizeResourceName(pathArray.get(0).getAsString());
+                }
+            } else if (urlElement.isJsonPrimitive()) {
+                String url = urlElement.getAsString();
+                String[] pathParts = url.split("/");
+                for (String part : pathParts) {
+                    if (!part.isEmpty() && !part.startsWith("{{") && !part.contains(":")) {
+                        return sanitizeResourceName(part);
                     }
                 }
             }
         }
 
         // Fall back to endpoint name
-        String name = endpoint.has("name") ? endpoint.get("name").getAsString() : "Unknown";
-        return sanitizeResourceName(name);
+        return sanitizeResourceName(endpoint.getName());
     }
 
     /**
@@ -198,18 +539,167 @@ public class TestClassGenerator {
     }
 
     /**
-     * Generates a test class for a group of related endpoints
+     * Generates the test classes for a group of related endpoints: one class, or numbered shards
+     * if the class would exceed the configured limits
+     *
+     * @return The paths of the generated files
+     */
+    private List<String> generateResourceTestClass(String resourceName, List<Endpoint> endpoints,
+                                                   Map<Endpoint, String> requestClasses, SourceWriter writer,
+                                                   GenerationReport report) throws IOException {
+        List<String> methods = new ArrayList<>(endpoints.size());
+        GenerationReport.Timing rendering = report.begin(GenerationReport.Phase.RENDER);
+        try {
+            for (Endpoint endpoint : endpoints) {
+                StringBuilder method = new StringBuilder();
+                generateTestMethod(endpoint, requestPojoName(endpoint, requestClasses), method, report);
+                methods.add(method.toString());
+            }
+        } finally {
+            report.end(rendering);
+        }
+
+        int[] shards;
+        GenerationReport.Timing inferring = report.begin(GenerationReport.Phase.INFER);
+        try {
+            shards = assignShards(resourceName, endpoints, methods);
+        } finally {
+            report.end(inferring);
+        }
+
+        // Shards in ascending order, each with its endpoints in collection order
+        SortedMap<Integer, List<Integer>> members = new TreeMap<>();
+        for (int i = 0; i < shards.length; i++) {
+            members.computeIfAbsent(shards[i], k -> new ArrayList<>()).add(i);
+        }
+
+        List<String> files = new ArrayList<>(members.size());
+        for (Map.Entry<Integer, List<Integer>> shard : members.entrySet()) {
+            int number = shard.getKey();
+            String className = resourceName + "ApiTests" + (number > 0 ? String.valueOf(number) : "");
+
+            List<Endpoint> shardEndpoints = new ArrayList<>();
+            List<String> shardMethods = new ArrayList<>();
+            for (int i : shard.getValue()) {
+                shardEndpoints.add(endpoints.get(i));
+                shardMethods.add(methods.get(i));
+            }
+
+            GenerationReport.Timing renderingClass = report.begin(GenerationReport.Phase.RENDER);
+            try {
+                writer.write(packageName, className,
+                        renderTestClass(className, resourceName, number, shardEndpoints, shardMethods));
+            } finally {
+                report.end(renderingClass);
+            }
+            files.add(SourceWriter.sourcePath(packageName, className));
+        }
+        return files;
+    }
+
+    /**
+     * Assigns the endpoints of a resource to numbered shards within the configured limits, or
+     * all to shard 0 if a single class stays within them.
+     * <p>
+     * The number of shards is a power of two with room to spare, and each endpoint goes to the
+     * shard its folder path and name hash to, or to the next shard with room if that one is full.
+     * The assignment therefore stays the same as endpoints are added, changed or removed, so only
+     * the shards of the affected endpoints change; all endpoints move only when the number of
+     * shards doubles or halves.
+     *
+     * @return The shard number of every endpoint
+     */
+    private int[] assignShards(String resourceName, List<Endpoint> endpoints, List<String> methods) {
+        int[] shards = new int[endpoints.size()];
+        if (maxMethodsPerClass == 0 && maxClassBytes == 0) {
+            return shards;
+        }
+
+        int[] sizes = new int[methods.size()];
+        int totalMethods = 0;
+        long totalBytes = 0;
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = methods.get(i).getBytes(StandardCharsets.UTF_8).length;
+            totalMethods += methods.get(i).isEmpty() ? 0 : 1;
+            totalBytes += sizes[i];
+        }
+
+        // Everything but the methods, with room for the longest shard number
+        int overhead = renderTestClass(resourceName + "ApiTests" + endpoints.size(), resourceName, endpoints.size(),
+                endpoints, Collections.emptyList()).getBytes(StandardCharsets.UTF_8).length;
+        if (fits(totalMethods, overhead + totalBytes)) {
+            return shards;
+        }
+
+        // Fill shards to at most three quarters on average, so that hashing rarely overflows a shard
+        int count = 2;
+        while (count < endpoints.size()
+                && !fits(totalMethods * 4 / (3 * count), overhead + totalBytes * 4 / (3 * count))) {
+            count *= 2;
+        }
+
+        int[] shardMethods = new int[count];
+        long[] shardBytes = new long[count];
+        Arrays.fill(shardBytes, overhead);
+        for (int i = 0; i < shards.length; i++) {
+            int methodCount = methods.get(i).isEmpty() ? 0 : 1;
+            int preferred = Math.floorMod(shardHash(endpoints.get(i)), count);
+
+            int shard = preferred;
+            while (!fits(shardMethods[shard] + methodCount, shardBytes[shard] + sizes[i])) {
+                shard = (shard + 1) % count;
+                if (shard == preferred) {
+                    // Fits nowhere, e.g. a single method larger than the size limit
+                    break;
+                }
+            }
+
+            shards[i] = shard + 1;
+            shardMethods[shard] += methodCount;
+            shardBytes[shard] += sizes[i];
+        }
+        return shards;
+    }
+
+    private boolean fits(int methods, long bytes) {
+        return (maxMethodsPerClass == 0 || methods <= maxMethodsPerClass)
+                && (maxClassBytes == 0 || bytes <= maxClassBytes);
+    }
+
+    /**
+     * Names an endpoint in the report by its folder path and name
      */
-    private static void generateResourceTestClass(String resourceName, List<JsonObject> endpoints) throws IOException {
-        String className = resourceName + "ApiTests";
+    private static String reportName(Endpoint endpoint) {
+        StringBuilder name = new StringBuilder();
+        for (String folderName : endpoint.getFolderPath()) {
+            name.append(folderName != null ? folderName : "").append('/');
+        }
+        return name.append(endpoint.getName()).toString();
+    }
 
+    private static int shardHash(Endpoint endpoint) {
+        ShapeFingerprint.Hasher hasher = new ShapeFingerprint.Hasher();
+        for (String folderName : endpoint.getFolderPath()) {
+            hasher.putString(folderName != null ? folderName : "");
+        }
+        return hasher.putString(endpoint.getName()).finish().hashCode();
+    }
+
+    /**
+     * Renders a test class for some endpoints of a resource
+     *
+     * @param shard   Number of the shard, or 0 if the resource has a single test class
+     * @param methods Rendered test methods of the endpoints
+     */
+    private String renderTestClass(String className, String resourceName, int shard, List<Endpoint> endpoints,
+                                   List<String> methods) {
         StringBuilder classBuilder = new StringBuilder();
 
         // Package declaration
         classBuilder.append("package ").append(packageName).append(";\n\n");
 
         // Imports
-        Set<String> imports = new HashSet<>();
+        Set<String> imports = new TreeSet<>();
         imports.add("org.testng.annotations.Test");
         imports.add("org.testng.annotations.BeforeClass");
         imports.add("org.testng.annotations.BeforeMethod");
@@ -222,9 +712,7 @@ public class TestClassGenerator {
 
         // Check if any endpoints have request body
         boolean hasRequestBody = endpoints.stream()
-                .filter(e -> e.has("request"))
-                .map(e -> e.getAsJsonObject("request"))
-                .anyMatch(r -> r.has("body") && r.getAsJsonObject("body").has("raw"));
+                .anyMatch(e -> e.getRequestBody() != null);
 
         // Add imports for potential POJOs
         if (hasRequestBody) {
@@ -235,19 +723,17 @@ public class TestClassGenerator {
 
         // Check if any endpoints have path variables
         boolean hasPathVariables = false;
-        for (JsonObject endpoint : endpoints) {
-            if (endpoint.has("request")) {
-                JsonObject request = endpoint.getAsJsonObject("request");
-                if (request.has("url")) {
-                    JsonElement urlElement = request.get("url");
-                    if (urlElement.isJsonObject() && urlElement.getAsJsonObject().has("variable")) {
-                        hasPathVariables = true;
-                        break;
-                    } else if (urlElement.isJsonPrimitive() && urlElement.getAsString().contains("{")) {
-                        hasPathVariables = true;
-                        break;
-                    }
-                }
+        for (Endpoint endpoint : endpoints) {
+            JsonElement urlElement = endpoint.getUrl();
+            if (urlElement == null) {
+                continue;
+            }
+            if (urlElement.isJsonObject() && urlElement.getAsJsonObject().has("variable")) {
+                hasPathVariables = true;
+                break;
+            } else if (urlElement.isJsonPrimitive() && urlElement.getAsString().contains("{")) {
+                hasPathVariables = true;
+                break;
             }
         }
 
@@ -256,18 +742,18 @@ public class TestClassGenerator {
             imports.add("java.util.Map");
         }
 
-        // Sort imports
-        List<String> sortedImports = new ArrayList<>(imports);
-        Collections.sort(sortedImports);
-
-        for (String importClass : sortedImports) {
+        for (String importClass : imports) {
             classBuilder.append("import ").append(importClass).append(";\n");
         }
         classBuilder.append("\n");
 
         // Class declaration with JavaDoc
         classBuilder.append("/**\n");
-        classBuilder.append(" * Tests for ").append(resourceName).append(" API endpoints\n");
+        classBuilder.append(" * Tests for ").append(resourceName).append(" API endpoints");
+        if (shard > 0) {
+            classBuilder.append(", part ").append(shard);
+        }
+        classBuilder.append("\n");
         classBuilder.append(" */\n");
         classBuilder.append("public class ").append(className)
                 .append(" extends BaseApiTest {\n\n");
@@ -284,39 +770,29 @@ public class TestClassGenerator {
         classBuilder.append("        // Set up method-level configuration\n");
         classBuilder.append("    }\n\n");
 
-        // Generate a test method for each endpoint
-        for (JsonObject endpoint : endpoints) {
-            generateTestMethod(endpoint, classBuilder);
+        for (String method : methods) {
+            classBuilder.append(method);
         }
 
         classBuilder.append("}\n");
-
-        // Write to file
-        String fullPackagePath = outputDir + "/" + packageName.replace('.', '/');
-        Path path = Paths.get(fullPackagePath);
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-        }
-
-        try (FileWriter writer = new FileWriter(fullPackagePath + "/" + className + ".java")) {
-            writer.write(classBuilder.toString());
-        }
-
-        System.out.println("Generated test class: " + className);
+        return classBuilder.toString();
     }
 
     /**
      * Generates a test method for an individual endpoint
+     *
+     * @param requestPojoName Class to build a JSON request body with, or null to build a JSONObject
      */
-    private static void generateTestMethod(JsonObject endpoint, StringBuilder classBuilder) {
-        String endpointName = endpoint.has("name") ? endpoint.get("name").getAsString() : "Unknown";
+    private void generateTestMethod(Endpoint endpoint, String requestPojoName, StringBuilder classBuilder,
+                                    GenerationReport report) {
+        String endpointName = endpoint.getName();
 
         // Skip if no request
-        if (!endpoint.has("request")) {
+        if (!endpoint.hasRequest()) {
             return;
         }
 
-        JsonObject request = endpoint.getAsJsonObject("request");
+        JsonObject request = endpoint.getRequest();
 
         // Extract HTTP method
         String httpMethod = request.has("method") ? request.get("method").getAsString().toLowerCase() : "get";
@@ -423,17 +899,24 @@ public class TestClassGenerator {
         boolean isJsonBody = false;
         String pojoClassName = null;
 
-        if (request.has("body") && request.getAsJsonObject("body").has("mode")) {
+        if (endpoint.getBodyMode() != null) {
             hasBody = true;
-            bodyType = request.getAsJsonObject("body").get("mode").getAsString();
-
-            if ("raw".equals(bodyType) && request.getAsJsonObject("body").has("raw")) {
-                bodyContent = request.getAsJsonObject("body").get("raw").getAsString();
-                isJsonBody = isJsonBody(bodyContent);
+            bodyType = endpoint.getBodyMode();
+
+            if ("raw".equals(bodyType) && endpoint.getRequestBody() != null) {
+                bodyContent = endpoint.getRequestBody().getRaw();
+                GenerationReport.Timing parsing = report.begin(GenerationReport.Phase.PARSE);
+                try {
+                    isJsonBody = endpoint.getRequestBody().analysis().isJsonDocument();
+                } finally {
+                    report.end(parsing);
+                }
+                report.count("bodies", 1);
+                report.bodySize(reportName(endpoint), bodyContent.length());
 
                 if (isJsonBody) {
                     // Determine potential POJO class name for request
-                    pojoClassName = determineRequestPojoName(endpointName);
+                    pojoClassName = requestPojoName;
                 }
             }
         }
@@ -591,6 +1074,17 @@ public class TestClassGenerator {
         classBuilder.append("    }\n\n");
     }
 
+    /**
+     * Returns the class the test of an endpoint builds a JSON request body with: the class resolved by the
+     * POJO generator, or the conventional name if the POJOs were generated separately. Null if the POJO
+     * generator made no class for the body.
+     */
+    private static String requestPojoName(Endpoint endpoint, Map<Endpoint, String> requestClasses) {
+        return requestClasses.containsKey(endpoint)
+                ? requestClasses.get(endpoint)
+                : determineRequestPojoName(endpoint.getName());
+    }
+
     /**
      * Determines a potential POJO class name for a request
      */
@@ -620,18 +1114,10 @@ public class TestClassGenerator {
     /**
      * Generate the base test class that all resource classes will extend
      */
-    private static void generateBaseTestClass() throws IOException {
+    private void generateBaseTestClass(SourceWriter writer) throws IOException {
         StringBuilder classBuilder = new StringBuilder();
         String baseClassName = "BaseApiTest";
 
-        // Create the package directory structure
-        String basePackagePath = basePackage.replace('.', '/');
-        String fullPackagePath = outputDir + "/" + basePackagePath + "/base";
-        Path path = Paths.get(fullPackagePath);
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-        }
-
         // Package declaration
         classBuilder.append("package ").append(basePackage).append(".base;\n\n");
 
@@ -719,22 +1205,7 @@ public class TestClassGenerator {
 
         classBuilder.append("}\n");
 
-        try (FileWriter writer = new FileWriter(fullPackagePath + "/" + baseClassName + ".java")) {
-            writer.write(classBuilder.toString());
-        }
-
-        System.out.println("Generated base test class: " + baseClassName);
-    }
-
-    /**
-     * Creates the output directory structure
-     */
-    private static void createOutputDirectory() throws IOException {
-        String fullPackagePath = outputDir + "/" + packageName.replace('.', '/');
-        Path path = Paths.get(fullPackagePath);
-        if (!Files.exists(path)) {
-            Files.createDirectories(path);
-        }
+        writer.write(basePackage + ".base", baseClassName, classBuilder.toString());
     }
 
     /**
@@ -755,25 +1226,4 @@ public class TestClassGenerator {
 
         return camelCase;
     }
-
-    /**
-     * Checks if a string is a valid JSON
-     */
-    private static boolean isJsonBody(String body) {
-        if (body == null || body.trim().isEmpty()) {
-            return false;
-        }
-
-        String trimmed = body.trim();
-        if ((trimmed.startsWith("{") && trimmed.endsWith("}")) ||
-                (trimmed.startsWith("[") && trimmed.endsWith("]"))) {
-            try {
-                JsonParser.parseString(trimmed);
-                return true;
-            } catch (Exception e) {
-                return false;
-            }
-        }
-        return false;
-    }
-}
\ No newline at end of file
+}
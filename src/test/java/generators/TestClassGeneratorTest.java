@@ -0,0 +1,157 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestClassGeneratorTest {
+    private static final Pattern TEST_METHOD = Pattern.compile("public void (test\\w+)\\(\\)");
+
+    private Path collection;
+
+    @BeforeMethod
+    public void createCollection() throws IOException {
+        collection = Files.createTempFile("test-class-generator", ".json");
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteCollection() throws IOException {
+        Files.deleteIfExists(collection);
+    }
+
+    @Test
+    public void resourceWithinTheLimitsHasOneClass() throws IOException {
+        writeUsers(40);
+
+        SortedMap<String, List<String>> classes = testClasses(new TestClassGenerator.Config().setMaxMethodsPerClass(40));
+
+        assertEquals(classes.keySet(), Set.of("UsersApiTests"));
+        assertEquals(classes.get("UsersApiTests").size(), 40);
+    }
+
+    @Test
+    public void shardsStayWithinTheMethodLimit() throws IOException {
+        writeUsers(40);
+
+        SortedMap<String, List<String>> classes = testClasses(new TestClassGenerator.Config().setMaxMethodsPerClass(8));
+
+        List<String> methods = new ArrayList<>();
+        for (Map.Entry<String, List<String>> shard : classes.entrySet()) {
+            assertTrue(shard.getKey().matches("UsersApiTests[1-9]\\d*"), shard.getKey());
+            assertTrue(shard.getValue().size() <= 8, shard.toString());
+            methods.addAll(shard.getValue());
+        }
+        assertTrue(classes.size() > 1, classes.toString());
+        assertEquals(methods.size(), 40);
+        assertEquals(methods.stream().distinct().count(), 40);
+    }
+
+    @Test
+    public void shardsStayWithinTheSizeLimit() throws IOException {
+        writeUsers(40);
+
+        MemorySink sink = new MemorySink();
+        new TestClassGenerator.Config().setOutputSink(sink).setMaxClassBytes(6000).build()
+                .generateTestClasses(collection.toString());
+
+        int shards = 0;
+        for (String path : sink.list()) {
+            if (path.startsWith("tests/UsersApiTests")) {
+                shards++;
+                assertTrue(sink.read(path).length <= 6000, path);
+            }
+        }
+        assertTrue(shards > 1, sink.list().toString());
+    }
+
+    @Test
+    public void addedEndpointLeavesTheOthersInTheirShards() throws IOException {
+        TestClassGenerator.Config config = new TestClassGenerator.Config().setMaxMethodsPerClass(8);
+        writeUsers(40);
+        Map<String, String> before = shardOfMethod(testClasses(config));
+        writeUsers(41);
+        Map<String, String> after = shardOfMethod(testClasses(config));
+
+        assertEquals(after.size(), 41);
+        for (Map.Entry<String, String> method : before.entrySet()) {
+            assertEquals(after.get(method.getKey()), method.getValue(), method.getKey());
+        }
+    }
+
+    /**
+     * Generates the test classes of the collection and returns the test methods of each class of the Users resource
+     */
+    private SortedMap<String, List<String>> testClasses(TestClassGenerator.Config config) throws IOException {
+        MemorySink sink = new MemorySink();
+        config.setOutputSink(sink).build().generateTestClasses(collection.toString());
+
+        SortedMap<String, List<String>> classes = new TreeMap<>();
+        for (String path : sink.list()) {
+            if (!path.startsWith("tests/UsersApiTests")) {
+                continue;
+            }
+            List<String> methods = new ArrayList<>();
+            Matcher matcher = TEST_METHOD.matcher(sink.getText(path));
+            while (matcher.find()) {
+                methods.add(matcher.group(1));
+            }
+            classes.put(path.substring("tests/".length(), path.length() - ".java".length()), methods);
+        }
+        return classes;
+    }
+
+    private static Map<String, String> shardOfMethod(SortedMap<String, List<String>> classes) {
+        Map<String, String> shards = new TreeMap<>();
+        for (Map.Entry<String, List<String>> shard : classes.entrySet()) {
+            for (String method : shard.getValue()) {
+                shards.put(method, shard.getKey());
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Writes a collection with a Users folder of numbered endpoints
+     */
+    private void writeUsers(int count) throws IOException {
+        JsonArray endpoints = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            JsonObject request = new JsonObject();
+            request.addProperty("method", "GET");
+            request.addProperty("url", "{{base_url}}/users/" + i);
+
+            JsonObject endpoint = new JsonObject();
+            endpoint.addProperty("name", "Get user " + i);
+            endpoint.add("request", request);
+            endpoints.add(endpoint);
+        }
+
+        JsonObject folder = new JsonObject();
+        folder.addProperty("name", "Users");
+        folder.add("item", endpoints);
+        JsonArray folders = new JsonArray();
+        folders.add(folder);
+        JsonObject root = new JsonObject();
+        root.add("item", folders);
+
+        Files.writeString(collection, root.toString(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,355 @@
+package generators;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Union of the JSON values seen at one position of a body, such as all elements of an array
+ * or the same field in several examples: which kinds of value occurred, the widest number type,
+ * the fields of objects in the order they were first seen and the union of array elements. Values are merged one at a time, so
+ * a shape stays as small as the structure it describes however many values it has seen.
+ * <p>
+ * Arrays longer than the sample limit contribute a reservoir sample of their object and array
+ * elements instead of all of them. Scalars and nulls are cheap to merge and are always merged, so
+ * numbers are widened over every element. Objects left out of the sample still count towards which
+ * fields are missing or null, and their scalar fields are merged; only their nested objects and arrays
+ * are skipped. The sample is drawn with a fixed seed, so the same body always yields the same shape.
+ */
+final class ValueShape {
+    /**
+     * Number types in widening order
+     */
+    enum NumberType {
+        INTEGER("Integer"),
+        LONG("Long"),
+        DOUBLE("Double");
+
+        private final String javaType;
+
+        NumberType(String javaType) {
+            this.javaType = javaType;
+        }
+    }
+
+    private static final long SAMPLE_SEED = 0x5DEECE66DL;
+
+    private final int sampleLimit;
+    private int values;
+    private int objects;
+    private boolean nullSeen;
+    private boolean booleanSeen;
+    private boolean stringSeen;
+    private NumberType numberType;
+    private Map<String, ValueShape> fields;
+    private ValueShape elements;
+
+    private ValueShape(int sampleLimit) {
+        this.sampleLimit = sampleLimit;
+    }
+
+    /**
+     * Infers the shape of a value
+     *
+     * @param sampleLimit Number of elements above which arrays are sampled; 0 merges all elements
+     */
+    static ValueShape of(JsonElement value, int sampleLimit) {
+        ValueShape shape = new ValueShape(sampleLimit);
+        shape.add(value);
+        return shape;
+    }
+
+    /**
+     * Merges a value into this shape
+     */
+    void add(JsonElement value) {
+        values++;
+        if (value == null || value.isJsonNull()) {
+            nullSeen = true;
+            return;
+        }
+
+        if (value.isJsonObject()) {
+            addObject(value.getAsJsonObject());
+        } else if (value.isJsonArray()) {
+            addArray(value.getAsJsonArray());
+        } else {
+            JsonPrimitive primitive = value.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                booleanSeen = true;
+            } else if (primitive.isNumber()) {
+                NumberType type = numberType(primitive);
+                if (numberType == null || type.compareTo(numberType) > 0) {
+                    numberType = type;
+                }
+            } else {
+                stringSeen = true;
+            }
+        }
+    }
+
+    private void addObject(JsonObject object) {
+        objects++;
+        if (fields == null) {
+            fields = new LinkedHashMap<>();
+        }
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            fields.computeIfAbsent(entry.getKey(), k -> new ValueShape(sampleLimit)).add(entry.getValue());
+        }
+    }
+
+    private void addArray(JsonArray array) {
+        if (elements == null) {
+            elements = new ValueShape(sampleLimit);
+        }
+        if (sampleLimit <= 0 || array.size() <= sampleLimit) {
+            for (JsonElement element : array) {
+                elements.add(element);
+            }
+            return;
+        }
+
+        int[] sample = sample(array.size());
+        int next = 0;
+        for (int i = 0; i < array.size(); i++) {
+            JsonElement element = array.get(i);
+            if (next < sample.length && sample[next] == i) {
+                next++;
+                elements.add(element);
+            } else if (!element.isJsonObject() && !element.isJsonArray()) {
+                elements.add(element);
+            }
+        }
+
+        // Once the sample has found the fields, the other objects are checked for missing and null ones
+        next = 0;
+        for (int i = 0; i < array.size(); i++) {
+            if (next < sample.length && sample[next] == i) {
+                next++;
+                continue;
+            }
+            JsonElement element = array.get(i);
+            if (element.isJsonObject()) {
+                elements.addUnsampled(element.getAsJsonObject());
+            } else if (element.isJsonArray()) {
+                elements.values++;
+            }
+        }
+    }
+
+    /**
+     * Merges an object left out of an array's sample without descending into it: it counts as
+     * an object, its scalar and null fields are merged and its other fields only count as present
+     * if the sample has them
+     */
+    private void addUnsampled(JsonObject object) {
+        values++;
+        objects++;
+        if (fields == null) {
+            fields = new LinkedHashMap<>();
+        }
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            JsonElement value = entry.getValue();
+            if (value.isJsonObject() || value.isJsonArray()) {
+                ValueShape field = fields.get(entry.getKey());
+                if (field != null) {
+                    field.values++;
+                }
+            } else {
+                fields.computeIfAbsent(entry.getKey(), k -> new ValueShape(sampleLimit)).add(value);
+            }
+        }
+    }
+
+    /**
+     * Merges another shape into this shape, as if the values it saw had been added here
+     */
+    void add(ValueShape other) {
+        values += other.values;
+        objects += other.objects;
+        nullSeen |= other.nullSeen;
+        booleanSeen |= other.booleanSeen;
+        stringSeen |= other.stringSeen;
+        if (other.numberType != null && (numberType == null || other.numberType.compareTo(numberType) > 0)) {
+            numberType = other.numberType;
+        }
+        if (other.fields != null) {
+            if (fields == null) {
+                fields = new LinkedHashMap<>();
+            }
+            for (Map.Entry<String, ValueShape> entry : other.fields.entrySet()) {
+                fields.computeIfAbsent(entry.getKey(), k -> new ValueShape(sampleLimit)).add(entry.getValue());
+            }
+        }
+        if (other.elements != null) {
+            if (elements == null) {
+                elements = new ValueShape(sampleLimit);
+            }
+            elements.add(other.elements);
+        }
+    }
+
+    /**
+     * Returns the union of the values of all fields of the objects seen
+     */
+    ValueShape fieldValues() {
+        ValueShape union = new ValueShape(sampleLimit);
+        for (ValueShape field : getFields().values()) {
+            union.add(field);
+        }
+        return union;
+    }
+
+    /**
+     * Checks if another shape saw the same kinds of value, number type, nulls, fields and elements,
+     * regardless of how many values either shape saw and in which order fields came
+     */
+    boolean hasSameStructure(ValueShape other) {
+        if (nullSeen != other.nullSeen || booleanSeen != other.booleanSeen || stringSeen != other.stringSeen
+                || numberType != other.numberType || (fields == null) != (other.fields == null)
+                || (elements == null) != (other.elements == null)
+                || !getFields().keySet().equals(other.getFields().keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, ValueShape> field : getFields().entrySet()) {
+            if (isOptional(field.getKey()) != other.isOptional(field.getKey())
+                    || !field.getValue().hasSameStructure(other.getFields().get(field.getKey()))) {
+                return false;
+            }
+        }
+        return elements == null || elements.hasSameStructure(other.elements);
+    }
+
+    /**
+     * Draws a reservoir sample of {@code sampleLimit} indices below {@code size}, in ascending order
+     * so that fields are still seen in array order
+     */
+    private int[] sample(int size) {
+        Random random = new Random(SAMPLE_SEED);
+        int[] reservoir = new int[sampleLimit];
+        for (int i = 0; i < size; i++) {
+            if (i < reservoir.length) {
+                reservoir[i] = i;
+            } else {
+                int slot = random.nextInt(i + 1);
+                if (slot < reservoir.length) {
+                    reservoir[slot] = i;
+                }
+            }
+        }
+        Arrays.sort(reservoir);
+        return reservoir;
+    }
+
+    /**
+     * Classifies a number as the narrowest type that holds it
+     */
+    static NumberType numberType(JsonPrimitive primitive) {
+        if (primitive.getAsString().contains(".")) {
+            return NumberType.DOUBLE;
+        }
+
+        // Check if it fits in an Integer or needs a Long
+        try {
+            long value = primitive.getAsLong();
+            if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+                return NumberType.LONG;
+            }
+            return NumberType.INTEGER;
+        } catch (NumberFormatException e) {
+            return NumberType.DOUBLE;
+        }
+    }
+
+    /**
+     * Number of kinds of non-null value seen: boolean, string, number, object and array
+     */
+    private int kinds() {
+        return (booleanSeen ? 1 : 0) + (stringSeen ? 1 : 0) + (numberType != null ? 1 : 0)
+                + (fields != null ? 1 : 0) + (elements != null ? 1 : 0);
+    }
+
+    /**
+     * Checks if no value was merged into this shape
+     */
+    boolean isEmpty() {
+        return values == 0;
+    }
+
+    /**
+     * Checks if every non-null value was an object
+     */
+    boolean isObject() {
+        return fields != null && kinds() == 1;
+    }
+
+    /**
+     * Checks if every non-null value was an array
+     */
+    boolean isArray() {
+        return elements != null && kinds() == 1;
+    }
+
+    /**
+     * Checks if every non-null value was a number
+     */
+    boolean isNumber() {
+        return numberType != null && kinds() == 1;
+    }
+
+    /**
+     * Returns the Java type of a scalar shape: the type of its only kind of value, widened across
+     * numbers, or {@code Object} if it saw none or several kinds
+     */
+    String scalarType() {
+        if (kinds() != 1) {
+            return "Object";
+        }
+        if (booleanSeen) {
+            return "Boolean";
+        }
+        if (stringSeen) {
+            return "String";
+        }
+        if (numberType != null) {
+            return numberType.javaType;
+        }
+        return elements != null ? "List<Object>" : "Object";
+    }
+
+    /**
+     * Checks if a null was seen
+     */
+    boolean isNullSeen() {
+        return nullSeen;
+    }
+
+    /**
+     * Checks if a field of the objects seen was missing from some of them
+     */
+    boolean isOptional(String field) {
+        ValueShape shape = getFields().get(field);
+        return shape == null || shape.values < objects;
+    }
+
+    /**
+     * Fields of the objects seen, in the order they were first seen
+     */
+    Map<String, ValueShape> getFields() {
+        return fields != null ? fields : Collections.emptyMap();
+    }
+
+    /**
+     * Union of the elements of the arrays seen, or null if no array was seen
+     */
+    ValueShape getElements() {
+        return elements;
+    }
+}
@@ -0,0 +1,184 @@
+package generators;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Packs generated files into a zip or jar archive, so that a build can generate straight into an
+ * archive without creating thousands of small files. Files are spooled to a temporary file as
+ * they arrive, so memory use does not grow with the output, and are copied into the archive when
+ * the sink is closed, sorted by path and with a fixed timestamp. The same input therefore always
+ * yields a byte-identical archive however many threads wrote it.
+ * An archive is written from scratch in every run; it cannot be regenerated incrementally.
+ */
+public final class ZipSink implements OutputSink {
+    // 1980-01-01, the earliest time a zip entry can hold
+    private static final long ENTRY_TIME = 315532800000L;
+
+    private final String name;
+    private final ZipOutputStream zip;
+    private final boolean jar;
+    // Spooled content of the entries, deleted when the sink is closed
+    private final FileChannel spool;
+    private final SortedMap<String, SpooledEntry> entries = new TreeMap<>();
+    private long spoolSize;
+    private boolean closed;
+
+    /**
+     * Creates an archive file; a name ending with .jar creates a jar with a manifest
+     *
+     * @throws IOException If the file cannot be created
+     */
+    public ZipSink(Path archive) throws IOException {
+        this(archive.toString(), Files.newOutputStream(archive),
+                archive.getFileName().toString().toLowerCase().endsWith(".jar"));
+    }
+
+    /**
+     * Writes an archive to an output stream, which is closed with this sink
+     *
+     * @param jar true to write a jar with a manifest
+     */
+    public ZipSink(OutputStream out, boolean jar) throws IOException {
+        this(jar ? "jar stream" : "zip stream", out, jar);
+    }
+
+    private ZipSink(String name, OutputStream out, boolean jar) throws IOException {
+        this.name = name;
+        this.jar = jar;
+        this.zip = jar ? new JarOutputStream(out) : new ZipOutputStream(out);
+        try {
+            this.spool = FileChannel.open(Files.createTempFile("zip-sink", ".spool"), StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            zip.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized boolean write(String path, byte[] content) throws IOException {
+        if (closed) {
+            throw new IOException("Archive already closed: " + name);
+        }
+        if (entries.containsKey(path)) {
+            throw new IOException("Duplicate archive entry " + path + " in " + name);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (buffer.hasRemaining()) {
+            spool.write(buffer, spoolSize + buffer.position());
+        }
+        entries.put(path, new SpooledEntry(spoolSize, content.length));
+        spoolSize += content.length;
+        return true;
+    }
+
+    private void writeEntry(String path, byte[] content) throws IOException {
+        ZipEntry entry = new ZipEntry(path);
+        entry.setTime(ENTRY_TIME);
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    /**
+     * Entries cannot be read back from the archive while it is written
+     */
+    @Override
+    public byte[] read(String path) {
+        return null;
+    }
+
+    @Override
+    public synchronized SortedSet<String> list() {
+        return new TreeSet<>(entries.keySet());
+    }
+
+    @Override
+    public synchronized boolean exists(String path) {
+        return entries.containsKey(path);
+    }
+
+    /**
+     * Entries cannot be removed from an archive stream
+     */
+    @Override
+    public boolean delete(String path) {
+        return false;
+    }
+
+    @Override
+    public boolean isPersistent() {
+        return false;
+    }
+
+    /**
+     * Writes the archive, the jar manifest first, and closes the underlying stream
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (zip; spool) {
+            if (jar) {
+                Manifest manifest = new Manifest();
+                manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+                ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+                manifest.write(manifestBytes);
+                writeEntry(JarFile.MANIFEST_NAME, manifestBytes.toByteArray());
+            }
+            for (Map.Entry<String, SpooledEntry> entry : entries.entrySet()) {
+                writeEntry(entry.getKey(), entry.getValue().read(spool));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /**
+     * Position and size of an entry's content in the spool file
+     */
+    private static final class SpooledEntry {
+        private final long offset;
+        private final int length;
+
+        private SpooledEntry(long offset, int length) {
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private byte[] read(FileChannel spool) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                if (spool.read(buffer, offset + buffer.position()) < 0) {
+                    throw new IOException("Spool file ended early");
+                }
+            }
+            return buffer.array();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package generators;
+
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarFile;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.expectThrows;
+
+public class ZipSinkTest {
+
+    @Test
+    public void entriesAreSortedWithTheManifestFirst() throws IOException {
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (ZipSink sink = new ZipSink(jar, true)) {
+            sink.write("tests/UsersApiTests.java", bytes("class UsersApiTests {}\n"));
+            sink.write("models/User.java", bytes("class User {}\n"));
+        }
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(jar.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                assertEquals(entry.getTime(), 315532800000L);
+                if (entry.getName().equals("models/User.java")) {
+                    assertEquals(zip.readAllBytes(), bytes("class User {}\n"));
+                }
+            }
+        }
+        assertEquals(names, List.of(JarFile.MANIFEST_NAME, "models/User.java", "tests/UsersApiTests.java"));
+    }
+
+    @Test
+    public void duplicateAndLateWritesFail() throws IOException {
+        ZipSink sink = new ZipSink(new ByteArrayOutputStream(), false);
+        sink.write("models/User.java", bytes("class User {}\n"));
+
+        expectThrows(IOException.class, () -> sink.write("models/User.java", bytes("class User {}\n")));
+        sink.close();
+        expectThrows(IOException.class, () -> sink.write("models/Order.java", bytes("class Order {}\n")));
+    }
+
+    @Test
+    public void archiveRunsKeepNoManifest() throws IOException {
+        Path collection = Files.createTempFile("zip-sink", ".json");
+        try {
+            Files.writeString(collection, "{\"item\":[{\"name\":\"GetUser\",\"request\":{\"method\":\"GET\","
+                    + "\"url\":\"{{base_url}}/users/1\"},\"response\":[{\"code\":200,\"body\":\"{\\\"id\\\":1}\"}]}]}",
+                    StandardCharsets.UTF_8);
+            MemorySink manifests = new MemorySink();
+
+            ByteArrayOutputStream zip = new ByteArrayOutputStream();
+            try (ZipSink sink = new ZipSink(zip, false)) {
+                new PojoGenerator.Config()
+                        .setOutputSink(sink)
+                        .setManifestSink(manifests)
+                        .build()
+                        .generatePojos(collection.toString());
+            }
+
+            assertFalse(zip.size() == 0);
+            assertEquals(manifests.list().size(), 0);
+        } finally {
+            Files.deleteIfExists(collection);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}